@@ -1,5 +1,6 @@
 package com.example.movieapp;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.web.servlet.ServletComponentScan;
@@ -16,8 +17,9 @@ public class MovieAppApplication {
     }
 
     @Bean
-    PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder(10);
+    PasswordEncoder passwordEncoder(@Value("${app.security.bcrypt-strength:10}") int strength) {
+        // raising the strength rehashes each user's password on their next successful login
+        return new BCryptPasswordEncoder(strength);
     }
 
 }
@@ -0,0 +1,66 @@
+package com.example.movieapp.config;
+
+import com.example.movieapp.service.CacheInvalidationService;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CachingConfigurerSupport;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.interceptor.CacheOperationInvocationContext;
+import org.springframework.cache.interceptor.CacheResolver;
+import org.springframework.cache.interceptor.SimpleCacheResolver;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import java.util.Collection;
+import java.util.stream.Collectors;
+
+/**
+ * Read-through caches for the catalog. Size and TTL come from {@code spring.cache.caffeine.spec};
+ * hit, miss and eviction counters are published by actuator under {@code /actuator/metrics/cache.*}.
+ * <p>
+ * Evictions made through the caching annotations are also sent to the other nodes by the
+ * {@link CacheInvalidationService}, so a write on one node does not leave stale entries on the rest.
+ * <p>
+ * The caching advice runs outside the transaction advice: a cache hit does not open a transaction,
+ * and evictions happen after the write has committed, so no reader can cache the old row in between.
+ */
+@Configuration
+@EnableCaching(order = Ordered.LOWEST_PRECEDENCE - 1)
+public class CacheConfig extends CachingConfigurerSupport {
+
+    public static final String MOVIES = "movies";
+    public static final String MOVIE_CATALOG = "movieCatalog";
+    public static final String MOVIE_PAGES = "moviePages";
+    public static final String GENRE_MOVIES = "genreMovies";
+
+    private final ObjectProvider<CacheManager> cacheManager;
+    private final ObjectProvider<CacheInvalidationService> cacheInvalidationService;
+
+    public CacheConfig(ObjectProvider<CacheManager> cacheManager,
+                       ObjectProvider<CacheInvalidationService> cacheInvalidationService) {
+        this.cacheManager = cacheManager;
+        this.cacheInvalidationService = cacheInvalidationService;
+    }
+
+    @Override
+    public CacheResolver cacheResolver() {
+        return new CacheResolver() {
+            private volatile CacheResolver delegate;
+
+            @Override
+            public Collection<? extends Cache> resolveCaches(CacheOperationInvocationContext<?> context) {
+                CacheResolver resolver = this.delegate;
+                if (resolver == null)
+                    this.delegate = resolver = new SimpleCacheResolver(CacheConfig.this.cacheManager.getObject());
+                Collection<? extends Cache> caches = resolver.resolveCaches(context);
+                CacheInvalidationService invalidationService = CacheConfig.this.cacheInvalidationService.getIfAvailable();
+                if (invalidationService == null)
+                    return caches;
+                return caches.stream()
+                        .map(cache -> new InvalidationPublishingCache(cache, invalidationService))
+                        .collect(Collectors.toList());
+            }
+        };
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.movieapp.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+@EnableScheduling
+public class CheckoutConfig {
+
+    public static final String CHECKOUT_EXECUTOR = "checkoutExecutor";
+
+    /**
+     * Threads that talk to the payment gateway, so slow payments never hold a request thread.
+     */
+    @Bean(name = CHECKOUT_EXECUTOR)
+    public ThreadPoolTaskExecutor checkoutExecutor(@Value("${app.checkout.worker-threads:4}") int workerThreads) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workerThreads);
+        executor.setMaxPoolSize(workerThreads);
+        executor.setThreadNamePrefix("checkout-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.movieapp.config;
+
+import com.example.movieapp.model.Role;
+import com.example.movieapp.model.UserPrincipal;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.core.serializer.DefaultDeserializer;
+import org.springframework.core.serializer.DefaultSerializer;
+import org.springframework.core.serializer.Deserializer;
+import org.springframework.core.serializer.Serializer;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Serializes session attributes for the shared session store. The security context of a form login and
+ * a bare {@link UserPrincipal} are written as a tag byte, the username and one byte each for role and
+ * account flags (a few dozen bytes instead of about a kilobyte of Java serialization); the request
+ * details of the authentication are not kept. Anything else, OAuth logins included, falls back to Java
+ * serialization behind its own tag.
+ * <p>
+ * Every written attribute is recorded in the session.attribute.bytes summary, tagged by format.
+ */
+@Component
+public class CompactSessionSerializer implements Serializer<Object>, Deserializer<Object> {
+
+    private static final byte JAVA = 0;
+    private static final byte SECURITY_CONTEXT = 1;
+    private static final byte PRINCIPAL = 2;
+
+    private final Serializer<Object> javaSerializer = new DefaultSerializer();
+    private final Deserializer<Object> javaDeserializer = new DefaultDeserializer(getClass().getClassLoader());
+    private final DistributionSummary compactBytes;
+    private final DistributionSummary javaBytes;
+
+    public CompactSessionSerializer(MeterRegistry meterRegistry) {
+        this.compactBytes = DistributionSummary.builder("session.attribute.bytes").baseUnit("bytes")
+                .tag("format", "compact").register(meterRegistry);
+        this.javaBytes = DistributionSummary.builder("session.attribute.bytes").baseUnit("bytes")
+                .tag("format", "java").register(meterRegistry);
+    }
+
+    @Override
+    public void serialize(Object object, OutputStream outputStream) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        DataOutputStream out = new DataOutputStream(bytes);
+        DistributionSummary size = this.compactBytes;
+        UserPrincipal principal = formLoginPrincipal(object);
+        if (principal != null) {
+            out.writeByte(SECURITY_CONTEXT);
+            writePrincipal(principal, out);
+        } else if (object instanceof UserPrincipal) {
+            out.writeByte(PRINCIPAL);
+            writePrincipal((UserPrincipal) object, out);
+        } else {
+            size = this.javaBytes;
+            out.writeByte(JAVA);
+            out.flush();
+            this.javaSerializer.serialize(object, bytes);
+        }
+        out.flush();
+        size.record(bytes.size());
+        bytes.writeTo(outputStream);
+    }
+
+    @Override
+    public Object deserialize(InputStream inputStream) throws IOException {
+        DataInputStream in = new DataInputStream(inputStream);
+        byte tag = in.readByte();
+        switch (tag) {
+            case SECURITY_CONTEXT:
+                UserPrincipal principal = readPrincipal(in);
+                return new SecurityContextImpl(
+                        new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+            case PRINCIPAL:
+                return readPrincipal(in);
+            case JAVA:
+                return this.javaDeserializer.deserialize(in);
+            default:
+                throw new IOException("Unknown session attribute format " + tag);
+        }
+    }
+
+    private static UserPrincipal formLoginPrincipal(Object object) {
+        if (!(object instanceof SecurityContext))
+            return null;
+        Authentication authentication = ((SecurityContext) object).getAuthentication();
+        if (authentication == null || authentication.getClass() != UsernamePasswordAuthenticationToken.class
+                || !authentication.isAuthenticated() || !(authentication.getPrincipal() instanceof UserPrincipal))
+            return null;
+        UserPrincipal principal = (UserPrincipal) authentication.getPrincipal();
+        // only when the authorities can be rebuilt from the role
+        return authentication.getAuthorities().equals(principal.getAuthorities()) ? principal : null;
+    }
+
+    private static void writePrincipal(UserPrincipal principal, DataOutputStream out) throws IOException {
+        out.writeUTF(principal.getUsername());
+        out.writeByte(principal.getRole() == null ? -1 : principal.getRole().ordinal());
+        out.writeByte((principal.isAccountNonExpired() ? 1 : 0)
+                | (principal.isAccountNonLocked() ? 2 : 0)
+                | (principal.isCredentialsNonExpired() ? 4 : 0)
+                | (principal.isEnabled() ? 8 : 0));
+    }
+
+    private static UserPrincipal readPrincipal(DataInputStream in) throws IOException {
+        String username = in.readUTF();
+        byte role = in.readByte();
+        byte flags = in.readByte();
+        return UserPrincipal.of(username, role < 0 ? null : Role.values()[role],
+                (flags & 1) != 0, (flags & 2) != 0, (flags & 4) != 0, (flags & 8) != 0);
+    }
+}
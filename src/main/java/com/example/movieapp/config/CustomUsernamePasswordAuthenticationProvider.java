@@ -1,13 +1,18 @@
 package com.example.movieapp.config;
 
+import com.example.movieapp.model.UserPrincipal;
+import com.example.movieapp.model.exceptions.LoginAttemptsExceededException;
 import com.example.movieapp.service.UserService;
+import com.example.movieapp.service.impl.LoginAttemptLimiter;
 import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.web.authentication.WebAuthenticationDetails;
 import org.springframework.stereotype.Component;
 
 @Component
@@ -15,10 +20,13 @@ public class CustomUsernamePasswordAuthenticationProvider implements Authenticat
 
     private final UserService userService;
     private final PasswordEncoder passwordEncoder;
+    private final LoginAttemptLimiter loginAttemptLimiter;
 
-    public CustomUsernamePasswordAuthenticationProvider(UserService userService, PasswordEncoder passwordEncoder) {
+    public CustomUsernamePasswordAuthenticationProvider(UserService userService, PasswordEncoder passwordEncoder,
+                                                        LoginAttemptLimiter loginAttemptLimiter) {
         this.userService = userService;
         this.passwordEncoder = passwordEncoder;
+        this.loginAttemptLimiter = loginAttemptLimiter;
     }
 
     @Override
@@ -30,12 +38,36 @@ public class CustomUsernamePasswordAuthenticationProvider implements Authenticat
             throw new BadCredentialsException("Invalid Credentials");
         }
 
-        UserDetails userDetails = this.userService.loadUserByUsername(username);
+        // checked before hashing, so throttled attempts cost no BCrypt work; the address is the client's
+        // only with server.forward-headers-strategy set behind a proxy (application-prod.properties)
+        String address = authentication.getDetails() instanceof WebAuthenticationDetails
+                ? ((WebAuthenticationDetails) authentication.getDetails()).getRemoteAddress() : null;
+        if (!this.loginAttemptLimiter.isAllowed(username, address)) {
+            throw new LoginAttemptsExceededException();
+        }
+
+        UserDetails userDetails;
+        try {
+            userDetails = this.userService.loadUserByUsername(username);
+        } catch (UsernameNotFoundException exception) {
+            this.loginAttemptLimiter.recordFailure(username, address);
+            throw exception;
+        }
 
         if (!passwordEncoder.matches(password, userDetails.getPassword())) {
+            this.loginAttemptLimiter.recordFailure(username, address);
             throw new BadCredentialsException("Password is incorrect!");
         }
-        return new UsernamePasswordAuthenticationToken(userDetails, userDetails.getPassword(), userDetails.getAuthorities());
+        this.loginAttemptLimiter.recordSuccess(username);
+
+        // hashes made with a lower strength than configured are replaced while the raw password is at hand
+        if (this.passwordEncoder.upgradeEncoding(userDetails.getPassword())) {
+            userDetails = this.userService.updatePassword(userDetails, this.passwordEncoder.encode(password));
+        }
+
+        // the session keeps the lean principal, without the password hash
+        UserDetails principal = userDetails instanceof UserPrincipal ? ((UserPrincipal) userDetails).withoutPassword() : userDetails;
+        return new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities());
 
     }
 
@@ -43,4 +75,4 @@ public class CustomUsernamePasswordAuthenticationProvider implements Authenticat
     public boolean supports(Class<?> aClass) {
         return aClass.equals(UsernamePasswordAuthenticationToken.class);
     }
-}
\ No newline at end of file
+}
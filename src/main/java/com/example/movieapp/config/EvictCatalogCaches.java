@@ -0,0 +1,26 @@
+package com.example.movieapp.config;
+
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Caching;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Evicts the cached catalog listings (full catalog, keyset pages and per-genre lists), which any change
+ * to a movie, actor or genre can alter. The {@link CacheConfig#MOVIES} cache of single movies is
+ * evicted separately, by key where the change touches one movie.
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@Caching(evict = {
+        @CacheEvict(cacheNames = CacheConfig.MOVIE_CATALOG, allEntries = true),
+        @CacheEvict(cacheNames = CacheConfig.MOVIE_PAGES, allEntries = true),
+        @CacheEvict(cacheNames = CacheConfig.GENRE_MOVIES, allEntries = true)
+})
+public @interface EvictCatalogCaches {
+}
@@ -0,0 +1,86 @@
+package com.example.movieapp.config;
+
+import com.example.movieapp.service.CacheInvalidationService;
+import org.springframework.cache.Cache;
+
+import java.util.concurrent.Callable;
+
+/**
+ * A cache that tells the other nodes about its evictions. Only {@code Long} keys travel; an eviction
+ * by any other key invalidates the whole cache on the other nodes.
+ */
+class InvalidationPublishingCache implements Cache {
+
+    private final Cache delegate;
+    private final CacheInvalidationService cacheInvalidationService;
+
+    InvalidationPublishingCache(Cache delegate, CacheInvalidationService cacheInvalidationService) {
+        this.delegate = delegate;
+        this.cacheInvalidationService = cacheInvalidationService;
+    }
+
+    @Override
+    public String getName() {
+        return this.delegate.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return this.delegate.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        return this.delegate.get(key);
+    }
+
+    @Override
+    public <T> T get(Object key, Class<T> type) {
+        return this.delegate.get(key, type);
+    }
+
+    @Override
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        return this.delegate.get(key, valueLoader);
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        this.delegate.put(key, value);
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        return this.delegate.putIfAbsent(key, value);
+    }
+
+    @Override
+    public void evict(Object key) {
+        this.delegate.evict(key);
+        publish(key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        boolean present = this.delegate.evictIfPresent(key);
+        publish(key);
+        return present;
+    }
+
+    @Override
+    public void clear() {
+        this.delegate.clear();
+        this.cacheInvalidationService.publish(getName(), null);
+    }
+
+    @Override
+    public boolean invalidate() {
+        boolean present = this.delegate.invalidate();
+        this.cacheInvalidationService.publish(getName(), null);
+        return present;
+    }
+
+    private void publish(Object key) {
+        this.cacheInvalidationService.publish(getName(), key instanceof Long ? (Long) key : null);
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.movieapp.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends connections for read-only transactions to the replica and everything else to the primary.
+ * Has to sit behind a {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}: the
+ * read-only flag of a transaction is only known after the transaction manager has asked for its
+ * connection.
+ * <p>
+ * The replica is used only while its last measured replay lag is within {@code maxLagSeconds}, and
+ * not for {@code maxLagSeconds} after this node committed a write or heard of another node's write
+ * through a cache invalidation, so a page rendered right after an edit (and the caches it fills) does
+ * not show the old data. A replica that refuses connections is skipped until the next lag check finds
+ * it healthy again.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    // the replay timestamp is that of the last replayed transaction, so its age only measures lag while
+    // there is WAL left to replay; a replica that has replayed everything it received is not behind
+    static final String LAG_QUERY = "SELECT CASE WHEN NOT pg_is_in_recovery() " +
+            "OR pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 " +
+            "ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()), 0) END";
+
+    enum Target { PRIMARY, REPLICA }
+
+    private final DataSource primary;
+    private final DataSource replica;
+    private final JdbcTemplate replicaTemplate;
+    private final String lagQuery;
+    private final double maxLagSeconds;
+    private final long pinNanos;
+    private final Counter primaryConnections;
+    private final Counter replicaConnections;
+    private final Counter fallbacks;
+    private volatile boolean replicaAvailable;
+    private volatile double lagSeconds = -1;
+    private volatile long primaryOnlyUntil = System.nanoTime();
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica, double maxLagSeconds, MeterRegistry meterRegistry) {
+        this(primary, replica, maxLagSeconds, meterRegistry, LAG_QUERY);
+    }
+
+    ReplicaRoutingDataSource(DataSource primary, DataSource replica, double maxLagSeconds, MeterRegistry meterRegistry,
+                             String lagQuery) {
+        this.primary = primary;
+        this.replica = replica;
+        this.replicaTemplate = new JdbcTemplate(replica);
+        this.lagQuery = lagQuery;
+        this.maxLagSeconds = maxLagSeconds;
+        this.pinNanos = (long) (maxLagSeconds * TimeUnit.SECONDS.toNanos(1));
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(Target.PRIMARY, primary);
+        targets.put(Target.REPLICA, replica);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+        this.primaryConnections = Counter.builder("datasource.routing").tag("target", "primary").register(meterRegistry);
+        this.replicaConnections = Counter.builder("datasource.routing").tag("target", "replica").register(meterRegistry);
+        this.fallbacks = Counter.builder("datasource.routing.fallbacks").register(meterRegistry);
+        Gauge.builder("datasource.replica.lag", this, dataSource -> dataSource.lagSeconds).baseUnit("seconds")
+                .register(meterRegistry);
+        Gauge.builder("datasource.replica.available", this, dataSource -> dataSource.replicaAvailable ? 1 : 0)
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly())
+            return Target.PRIMARY;
+        if (!this.replicaAvailable || System.nanoTime() - this.primaryOnlyUntil < 0)
+            return Target.PRIMARY;
+        return Target.REPLICA;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (determineCurrentLookupKey() == Target.REPLICA) {
+            try {
+                Connection connection = this.replica.getConnection();
+                this.replicaConnections.increment();
+                return connection;
+            } catch (SQLException exception) {
+                this.replicaAvailable = false;
+                this.fallbacks.increment();
+                log.warn("Replica unavailable, reading from the primary: {}", exception.getMessage());
+            }
+        } else if (TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            // a read-write transaction: keep this node's reads on the primary until the replica has caught up
+            this.pinToPrimary();
+        }
+        this.primaryConnections.increment();
+        return this.primary.getConnection();
+    }
+
+    /**
+     * Keeps reads on the primary for {@code maxLagSeconds} from now, long enough for the replica to
+     * replay a write that was just committed.
+     */
+    public void pinToPrimary() {
+        this.primaryOnlyUntil = System.nanoTime() + this.pinNanos;
+    }
+
+    /**
+     * Measures replay lag on the replica and decides whether it may serve reads.
+     */
+    @Scheduled(fixedDelayString = "${app.datasource.replica.lag-check-ms:5000}")
+    public void checkReplica() {
+        try {
+            Double lag = this.replicaTemplate.queryForObject(this.lagQuery, Double.class);
+            this.lagSeconds = lag == null ? 0 : lag;
+            boolean available = this.lagSeconds <= this.maxLagSeconds;
+            if (available != this.replicaAvailable)
+                log.info("Replica {} (lag {} s)", available ? "in use" : "behind, reading from the primary", this.lagSeconds);
+            this.replicaAvailable = available;
+        } catch (DataAccessException exception) {
+            if (this.replicaAvailable)
+                log.warn("Replica lag check failed, reading from the primary: {}", exception.getMessage());
+            this.replicaAvailable = false;
+        }
+    }
+
+    boolean isReplicaAvailable() {
+        return this.replicaAvailable;
+    }
+}
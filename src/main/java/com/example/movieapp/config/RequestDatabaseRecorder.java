@@ -0,0 +1,151 @@
+package com.example.movieapp.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.ModelAndView;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures, per endpoint, how long a request keeps database connections checked out, split into the
+ * controller ({@code phase=handler}) and the view rendering ({@code phase=view}). Published as the
+ * {@code db.connection.hold} timer; a connection counts towards the phase in which it was taken.
+ * With open-in-view off, the view phase should stay at zero.
+ * <p>
+ * Also counts the database round trips of each request (statement executions, commits and rollbacks)
+ * in the {@code db.round.trips} summary, to compare transaction designs per endpoint.
+ */
+class RequestDatabaseRecorder implements HandlerInterceptor {
+
+    private static final ThreadLocal<RequestHolds> CURRENT = new ThreadLocal<>();
+
+    private final MeterRegistry meterRegistry;
+
+    RequestDatabaseRecorder(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Wraps the application data source so that connections taken during a web request are timed.
+     */
+    static DataSource track(DataSource dataSource) {
+        return new TrackingDataSource(dataSource);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        CURRENT.set(new RequestHolds());
+        return true;
+    }
+
+    @Override
+    public void postHandle(HttpServletRequest request, HttpServletResponse response, Object handler,
+                           ModelAndView modelAndView) {
+        RequestHolds holds = CURRENT.get();
+        if (holds != null)
+            holds.rendering = true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception exception) {
+        RequestHolds holds = CURRENT.get();
+        CURRENT.remove();
+        if (holds == null)
+            return;
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern == null ? "UNKNOWN" : pattern.toString();
+        record(uri, "handler", holds.handlerNanos);
+        record(uri, "view", holds.viewNanos);
+        DistributionSummary.builder("db.round.trips")
+                .tag("uri", uri)
+                .register(this.meterRegistry)
+                .record(holds.roundTrips);
+    }
+
+    private void record(String uri, String phase, long nanos) {
+        Timer.builder("db.connection.hold")
+                .tag("uri", uri)
+                .tag("phase", phase)
+                .register(this.meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    // closeable so that the pool it wraps is still shut down with the application context
+    private static class TrackingDataSource extends DelegatingDataSource implements AutoCloseable {
+
+        TrackingDataSource(DataSource dataSource) {
+            super(dataSource);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            Connection connection = super.getConnection();
+            RequestHolds holds = CURRENT.get();
+            return holds == null ? connection : holds.track(connection);
+        }
+
+        @Override
+        public void close() throws Exception {
+            if (getTargetDataSource() instanceof AutoCloseable)
+                ((AutoCloseable) getTargetDataSource()).close();
+        }
+    }
+
+    private static class RequestHolds {
+        private boolean rendering;
+        private long handlerNanos;
+        private long viewNanos;
+        private long roundTrips;
+
+        Connection track(Connection connection) {
+            boolean takenWhileRendering = this.rendering;
+            long takenAt = System.nanoTime();
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                    (proxy, method, args) -> {
+                        String name = method.getName();
+                        if (name.equals("close") && !connection.isClosed()) {
+                            long held = System.nanoTime() - takenAt;
+                            if (takenWhileRendering)
+                                this.viewNanos += held;
+                            else
+                                this.handlerNanos += held;
+                        } else if (name.equals("commit") || name.equals("rollback")) {
+                            this.roundTrips++;
+                        }
+                        Object result = invoke(connection, method, args);
+                        return result instanceof Statement ? trackStatement((Statement) result, method.getReturnType()) : result;
+                    });
+        }
+
+        private Object trackStatement(Statement statement, Class<?> type) {
+            return Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{type},
+                    (proxy, method, args) -> {
+                        if (method.getName().startsWith("execute"))
+                            this.roundTrips++;
+                        return invoke(statement, method, args);
+                    });
+        }
+
+        private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException exception) {
+                throw exception.getCause();
+            }
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.movieapp.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.core.convert.support.GenericConversionService;
+import org.springframework.core.serializer.support.DeserializingConverter;
+import org.springframework.core.serializer.support.SerializingConverter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+@Configuration
+public class SessionConfig {
+
+    /**
+     * Picked up by the JDBC session repository for writing and reading session attributes.
+     */
+    @Bean("springSessionConversionService")
+    public ConversionService springSessionConversionService(CompactSessionSerializer serializer) {
+        GenericConversionService conversionService = new GenericConversionService();
+        conversionService.addConverter(Object.class, byte[].class, new SerializingConverter(serializer));
+        conversionService.addConverter(byte[].class, Object.class, new DeserializingConverter(serializer));
+        return conversionService;
+    }
+
+    /**
+     * Size of the stored sessions, for sizing the session table and the nodes that load from it.
+     */
+    @Component
+    @ConditionalOnProperty(name = "spring.session.store-type", havingValue = "jdbc")
+    static class SessionSizeMetrics {
+
+        private final JdbcTemplate jdbcTemplate;
+        private final AtomicLong sessions = new AtomicLong();
+        private final AtomicLong averageBytes = new AtomicLong();
+        private final AtomicLong maxBytes = new AtomicLong();
+
+        SessionSizeMetrics(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry) {
+            this.jdbcTemplate = jdbcTemplate;
+            Gauge.builder("session.stored", this.sessions, AtomicLong::get).register(meterRegistry);
+            Gauge.builder("session.bytes.avg", this.averageBytes, AtomicLong::get).baseUnit("bytes").register(meterRegistry);
+            Gauge.builder("session.bytes.max", this.maxBytes, AtomicLong::get).baseUnit("bytes").register(meterRegistry);
+        }
+
+        @Scheduled(fixedDelayString = "${app.session.metrics-interval-ms:60000}")
+        void refresh() {
+            this.jdbcTemplate.query("SELECT COUNT(*), CAST(COALESCE(AVG(bytes), 0) AS BIGINT), COALESCE(MAX(bytes), 0) FROM " +
+                    "(SELECT SUM(LENGTH(ATTRIBUTE_BYTES)) AS bytes FROM SPRING_SESSION_ATTRIBUTES " +
+                    "GROUP BY SESSION_PRIMARY_ID) s", resultSet -> {
+                this.sessions.set(resultSet.getLong(1));
+                this.averageBytes.set(resultSet.getLong(2));
+                this.maxBytes.set(resultSet.getLong(3));
+            });
+        }
+    }
+}
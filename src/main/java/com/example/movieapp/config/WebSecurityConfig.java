@@ -45,8 +45,8 @@ public class WebSecurityConfig extends WebSecurityConfigurerAdapter {
 
         http.csrf().disable()
                 .authorizeRequests()
-                .antMatchers("/assets/**", "/register" ).permitAll()
-                .antMatchers("/admin/**").hasRole("ADMIN")
+                .antMatchers("/assets/**", "/register", "/register/check").permitAll()
+                .antMatchers("/admin/**", "/actuator/**").hasRole("ADMIN")
                 .anyRequest()
                 .authenticated()
                 .and()
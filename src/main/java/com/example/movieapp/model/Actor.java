@@ -7,13 +7,16 @@ import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.SequenceGenerator;
 
 @Data
 @Entity
 @NoArgsConstructor
 public class Actor {
+    // pooled sequence rather than identity, so inserts can be batched (see schema-postgresql.sql)
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "actor_seq")
+    @SequenceGenerator(name = "actor_seq", sequenceName = "actor_seq", allocationSize = 50)
     private Long id;
 
     private String name;
@@ -0,0 +1,18 @@
+package com.example.movieapp.model;
+
+/**
+ * Read model for one card on the shopping-cart page: only the columns the page renders.
+ */
+public interface CartMovieView {
+
+    Long getId();
+
+    String getName();
+
+    String getImageUrl();
+
+    double getPrice();
+
+    String getMovieGenreName();
+
+}
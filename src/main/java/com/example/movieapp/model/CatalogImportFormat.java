@@ -0,0 +1,6 @@
+package com.example.movieapp.model;
+
+public enum CatalogImportFormat {
+    CSV,
+    JSON
+}
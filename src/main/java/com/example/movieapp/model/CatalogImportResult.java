@@ -0,0 +1,34 @@
+package com.example.movieapp.model;
+
+import lombok.Getter;
+
+/**
+ * What a catalog import committed. An import that stopped early (unreadable input, a chunk that
+ * failed to commit) keeps the chunks committed before that and says why it stopped in {@code failure}.
+ */
+@Getter
+public class CatalogImportResult {
+
+    private final long rows;
+    private final long movies;
+    private final long actors;
+    private final long movieGenres;
+    private final long skipped;
+    private final long millis;
+    private final String failure;
+
+    public CatalogImportResult(long rows, long movies, long actors, long movieGenres, long skipped, long millis,
+                               String failure) {
+        this.rows = rows;
+        this.movies = movies;
+        this.actors = actors;
+        this.movieGenres = movieGenres;
+        this.skipped = skipped;
+        this.millis = millis;
+        this.failure = failure;
+    }
+
+    public long getRowsPerSecond() {
+        return this.millis == 0 ? this.rows : this.rows * 1000 / this.millis;
+    }
+}
@@ -13,4 +13,6 @@ public class ChargeRequest {
     private Currency currency;
     private String stripeEmail;
     private String stripeToken;
+    // generated with the checkout form, so a resubmitted form does not pay twice
+    private String idempotencyKey;
 }
\ No newline at end of file
@@ -0,0 +1,60 @@
+package com.example.movieapp.model;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * A checkout of one shopping cart. Created PENDING together with its {@link OutboxEvent}; the payment
+ * itself happens later in the background and moves the order to PAID or FAILED.
+ */
+@Data
+@Entity
+@NoArgsConstructor
+public class CheckoutOrder {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private User user;
+
+    @OneToOne(fetch = FetchType.LAZY)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private ShoppingCart shoppingCart;
+
+    // in cents, priced from the cart when the order is placed
+    private int amount;
+
+    @Enumerated(EnumType.STRING)
+    private ChargeRequest.Currency currency;
+
+    @Enumerated(EnumType.STRING)
+    private OrderStatus status;
+
+    private String chargeId;
+
+    private String failureReason;
+
+    private LocalDateTime dateCreated;
+
+    private LocalDateTime dateUpdated;
+
+    public CheckoutOrder(User user, ShoppingCart shoppingCart, int amount, ChargeRequest.Currency currency) {
+        this.user = user;
+        this.shoppingCart = shoppingCart;
+        this.amount = amount;
+        this.currency = currency;
+        this.status = OrderStatus.PENDING;
+        this.dateCreated = LocalDateTime.now();
+        this.dateUpdated = this.dateCreated;
+    }
+}
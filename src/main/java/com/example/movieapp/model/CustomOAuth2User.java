@@ -1,14 +1,15 @@
 package com.example.movieapp.model;
 
+import java.io.Serializable;
 import java.util.Collection;
 import java.util.Map;
 
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.oauth2.core.user.OAuth2User;
 
-public class CustomOAuth2User implements OAuth2User {
-
+public class CustomOAuth2User implements OAuth2User, Serializable {
 
+    private static final long serialVersionUID = 1L;
 
     private OAuth2User oauth2User;
 
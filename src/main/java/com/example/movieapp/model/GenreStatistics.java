@@ -0,0 +1,19 @@
+package com.example.movieapp.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class GenreStatistics {
+
+    private final Long movieGenreId;
+    private final long count;
+    private final Double minPrice;
+    private final Double avgPrice;
+    private final Double maxPrice;
+
+    public static GenreStatistics empty(Long movieGenreId) {
+        return new GenreStatistics(movieGenreId, 0, null, null, null);
+    }
+}
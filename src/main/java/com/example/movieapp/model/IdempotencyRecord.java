@@ -0,0 +1,31 @@
+package com.example.movieapp.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * The order placed for an idempotency key, written in the same transaction as the order itself.
+ * The primary key stops two application nodes from both placing an order for one key.
+ */
+@Data
+@Entity
+@NoArgsConstructor
+@Table(indexes = @Index(name = "idx_idempotency_record_date_created", columnList = "dateCreated"))
+public class IdempotencyRecord {
+
+    @Id
+    private String idempotencyKey;
+
+    private Long orderId;
+
+    private LocalDateTime dateCreated;
+
+    public IdempotencyRecord(String idempotencyKey, Long orderId) {
+        this.idempotencyKey = idempotencyKey;
+        this.orderId = orderId;
+        this.dateCreated = LocalDateTime.now();
+    }
+}
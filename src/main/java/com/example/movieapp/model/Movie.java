@@ -1,7 +1,9 @@
 package com.example.movieapp.model;
 
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
 import javax.persistence.*;
 import java.util.List;
@@ -9,11 +11,17 @@ import java.util.List;
 @Data
 @Entity
 @NoArgsConstructor
+@Table(indexes = {
+        @Index(name = "idx_movie_name_id", columnList = "name, id"),
+        @Index(name = "idx_movie_price_id", columnList = "price, id")
+})
 public class Movie {
 
 
+    // pooled sequence rather than identity, so inserts can be batched (see schema-postgresql.sql)
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "movie_seq")
+    @SequenceGenerator(name = "movie_seq", sequenceName = "movie_seq", allocationSize = 50)
     private Long id;
 
     private String name;
@@ -29,7 +37,10 @@ public class Movie {
 
     private String imageUrl;
 
+    // kept out of equals/hashCode so hashing a movie (e.g. in a cart's movie set) never loads its actors
     @ManyToMany
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
     private List<Actor> actors;
 
     public Movie(String name, String description, double price, MovieGenre movieGenre, String imageUrl, List<Actor> actors) {
@@ -0,0 +1,46 @@
+package com.example.movieapp.model;
+
+import lombok.Getter;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * View model for a movie on the catalog and edit pages. Copied out of a fully loaded {@link Movie}
+ * by the controller, so rendering never touches the entity or a database connection.
+ */
+@Getter
+public class MovieCard {
+
+    private final Long id;
+    private final String name;
+    private final String description;
+    private final double price;
+    private final String imageUrl;
+    private final Long movieGenreId;
+    private final String movieGenreName;
+    private final List<Long> actorIds;
+    private final List<String> actorNames;
+
+    private MovieCard(Movie movie) {
+        this.id = movie.getId();
+        this.name = movie.getName();
+        this.description = movie.getDescription();
+        this.price = movie.getPrice();
+        this.imageUrl = movie.getImageUrl();
+        this.movieGenreId = movie.getMovieGenre() == null ? null : movie.getMovieGenre().getId();
+        this.movieGenreName = movie.getMovieGenre() == null ? null : movie.getMovieGenre().getName();
+        List<Actor> actors = movie.getActors() == null ? Collections.emptyList() : movie.getActors();
+        this.actorIds = actors.stream().map(Actor::getId).collect(Collectors.toList());
+        this.actorNames = actors.stream().map(Actor::getName).collect(Collectors.toList());
+    }
+
+    public static MovieCard from(Movie movie) {
+        return new MovieCard(movie);
+    }
+
+    public static List<MovieCard> from(List<Movie> movies) {
+        return movies.stream().map(MovieCard::from).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.movieapp.model;
+
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * One keyset (seek) page of the catalog. The cursor for the next page is the sort key value and id
+ * of the last movie on this page, so the next query can continue with a {@code WHERE (key, id) > (..)}
+ * instead of an {@code OFFSET}.
+ */
+@Getter
+public class MoviePage {
+
+    public static final int MAX_SIZE = 100;
+
+    private final List<Movie> movies;
+    private final MovieSortKey sortKey;
+    private final int size;
+    private final boolean hasNext;
+    private final Long nextAfterId;
+    private final String nextAfterValue;
+
+    public MoviePage(List<Movie> movies, MovieSortKey sortKey, int size, boolean hasNext) {
+        this.movies = movies;
+        this.sortKey = sortKey;
+        this.size = size;
+        this.hasNext = hasNext;
+        Movie last = movies.isEmpty() ? null : movies.get(movies.size() - 1);
+        this.nextAfterId = hasNext ? last.getId() : null;
+        this.nextAfterValue = hasNext ? sortValueOf(last, sortKey) : null;
+    }
+
+    /**
+     * The page size actually served for a requested size: at least one movie, at most {@link #MAX_SIZE}.
+     */
+    public static int clampSize(int size) {
+        return Math.max(1, Math.min(size, MAX_SIZE));
+    }
+
+    private static String sortValueOf(Movie movie, MovieSortKey sortKey) {
+        switch (sortKey) {
+            case NAME:
+                return movie.getName();
+            case PRICE:
+                return String.valueOf(movie.getPrice());
+            default:
+                return String.valueOf(movie.getId());
+        }
+    }
+}
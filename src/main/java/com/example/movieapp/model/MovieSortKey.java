@@ -0,0 +1,7 @@
+package com.example.movieapp.model;
+
+public enum MovieSortKey {
+    ID,
+    NAME,
+    PRICE
+}
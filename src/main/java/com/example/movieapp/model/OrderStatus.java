@@ -0,0 +1,9 @@
+package com.example.movieapp.model;
+
+public enum OrderStatus {
+    PENDING,
+    PAID,
+    FAILED,
+    // the provider never gave a definite answer; the cart stays closed while the charge is reconciled
+    PAYMENT_UNKNOWN
+}
@@ -0,0 +1,45 @@
+package com.example.movieapp.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * A payment still to be made for a {@link CheckoutOrder}. Written in the same transaction as the order,
+ * so an order is never left without its payment request (or the other way round), and deleted once the
+ * order is settled. A worker claims a row by setting lockedUntil, so a crashed worker's claim expires.
+ */
+@Data
+@Entity
+@NoArgsConstructor
+@Table(indexes = @Index(name = "idx_outbox_event_available_at", columnList = "availableAt"))
+public class OutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private Long orderId;
+
+    private String stripeToken;
+
+    private String stripeEmail;
+
+    private int attempts;
+
+    private LocalDateTime availableAt;
+
+    private LocalDateTime lockedUntil;
+
+    private LocalDateTime dateCreated;
+
+    public OutboxEvent(Long orderId, String stripeToken, String stripeEmail) {
+        this.orderId = orderId;
+        this.stripeToken = stripeToken;
+        this.stripeEmail = stripeEmail;
+        this.dateCreated = LocalDateTime.now();
+        this.availableAt = this.dateCreated;
+    }
+}
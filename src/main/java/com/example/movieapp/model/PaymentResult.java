@@ -0,0 +1,13 @@
+package com.example.movieapp.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class PaymentResult {
+
+    private final String chargeId;
+
+    private final String status;
+}
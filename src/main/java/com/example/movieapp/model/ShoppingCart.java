@@ -5,16 +5,18 @@ import lombok.NoArgsConstructor;
 
 import javax.persistence.*;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.HashSet;
+import java.util.Set;
 
 @Data
 @Entity
 @NoArgsConstructor
 public class ShoppingCart {
 
+    // pooled sequence rather than identity, so inserts can be batched (see schema-postgresql.sql)
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "shopping_cart_seq")
+    @SequenceGenerator(name = "shopping_cart_seq", sequenceName = "shopping_cart_seq", allocationSize = 50)
     private Long id;
 
     private LocalDateTime dateCreated;
@@ -23,15 +25,23 @@ public class ShoppingCart {
     private User user;
 
     @ManyToMany
-    private List<Movie> movies;
+    @JoinTable(name = "shopping_cart_movies",
+            joinColumns = @JoinColumn(name = "shopping_cart_id"),
+            inverseJoinColumns = @JoinColumn(name = "movies_id"),
+            uniqueConstraints = @UniqueConstraint(name = "uk_shopping_cart_movie",
+                    columnNames = {"shopping_cart_id", "movies_id"}))
+    private Set<Movie> movies;
 
     @Enumerated(EnumType.STRING)
     private ShoppingCartStatus status;
 
+    @Version
+    private Long version;
+
     public ShoppingCart(User user) {
         this.dateCreated = LocalDateTime.now();
         this.user = user;
-        this.movies = new ArrayList<>();
+        this.movies = new HashSet<>();
         this.status = ShoppingCartStatus.CREATED;
     }
 }
@@ -2,6 +2,8 @@ package com.example.movieapp.model;
 
 
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
@@ -27,7 +29,10 @@ public class User implements UserDetails  {
 
 
 
-    @OneToMany(mappedBy = "user", fetch = FetchType.EAGER)
+    // loaded only when asked for; signing in uses UserPrincipal and never touches the cart history
+    @OneToMany(mappedBy = "user", fetch = FetchType.LAZY)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
     private List<ShoppingCart> carts;
 
 
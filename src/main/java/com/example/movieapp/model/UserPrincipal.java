@@ -0,0 +1,70 @@
+package com.example.movieapp.model;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * What a signed-in user is for Spring Security: username, role and account flags, and nothing of
+ * the {@link User} entity's associations. Kept in the security context and the HTTP session instead
+ * of the entity.
+ */
+@Getter
+@ToString(exclude = "password")
+@EqualsAndHashCode(of = "username")
+public final class UserPrincipal implements UserDetails, Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String username;
+    // the stored hash, only set on principals used for checking a password
+    private final String password;
+    private final Role role;
+    private final boolean accountNonExpired;
+    private final boolean accountNonLocked;
+    private final boolean credentialsNonExpired;
+    private final boolean enabled;
+
+    private UserPrincipal(String username, String password, Role role, boolean accountNonExpired,
+                          boolean accountNonLocked, boolean credentialsNonExpired, boolean enabled) {
+        this.username = username;
+        this.password = password;
+        this.role = role;
+        this.accountNonExpired = accountNonExpired;
+        this.accountNonLocked = accountNonLocked;
+        this.credentialsNonExpired = credentialsNonExpired;
+        this.enabled = enabled;
+    }
+
+    public static UserPrincipal from(User user) {
+        return new UserPrincipal(user.getUsername(), user.getPassword(), user.getRole(), user.isAccountNonExpired(),
+                user.isAccountNonLocked(), user.isCredentialsNonExpired(), user.isEnabled());
+    }
+
+    /**
+     * A principal without password, as restored from a stored session.
+     */
+    public static UserPrincipal of(String username, Role role, boolean accountNonExpired, boolean accountNonLocked,
+                                   boolean credentialsNonExpired, boolean enabled) {
+        return new UserPrincipal(username, null, role, accountNonExpired, accountNonLocked, credentialsNonExpired, enabled);
+    }
+
+    /**
+     * The same principal without the password hash, for keeping after authentication.
+     */
+    public UserPrincipal withoutPassword() {
+        return new UserPrincipal(this.username, null, this.role, this.accountNonExpired, this.accountNonLocked,
+                this.credentialsNonExpired, this.enabled);
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return this.role == null ? Collections.emptyList() : Collections.singletonList(this.role);
+    }
+}
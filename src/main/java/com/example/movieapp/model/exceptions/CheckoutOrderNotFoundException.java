@@ -0,0 +1,8 @@
+package com.example.movieapp.model.exceptions;
+
+public class CheckoutOrderNotFoundException extends RuntimeException {
+
+    public CheckoutOrderNotFoundException(Long id) {
+        super(String.format("Order with id: %d was not found", id));
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.movieapp.model.exceptions;
+
+import org.springframework.security.core.AuthenticationException;
+
+public class LoginAttemptsExceededException extends AuthenticationException {
+
+    public LoginAttemptsExceededException() {
+        super("Too many failed login attempts, try again later");
+    }
+}
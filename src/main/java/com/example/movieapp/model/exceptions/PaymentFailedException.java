@@ -0,0 +1,16 @@
+package com.example.movieapp.model.exceptions;
+
+public class PaymentFailedException extends RuntimeException {
+
+    private final boolean retryable;
+
+    public PaymentFailedException(String message, boolean retryable) {
+        super(message);
+        this.retryable = retryable;
+    }
+
+    // true for failures to reach the payment provider, false when the payment itself was refused
+    public boolean isRetryable() {
+        return retryable;
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.movieapp.model.exceptions;
+
+public class ShoppingCartEmptyException extends RuntimeException {
+
+    public ShoppingCartEmptyException(String username) {
+        super(String.format("Shopping cart for user with username: %s is empty", username));
+    }
+}
@@ -6,4 +6,8 @@ public class ShoppingCartNotFoundException extends RuntimeException{
         super(String.format("Shopping cart with id: %d was not found", id));
     }
 
+    public ShoppingCartNotFoundException(String username) {
+        super(String.format("Active shopping cart for user with username: %s was not found", username));
+    }
+
 }
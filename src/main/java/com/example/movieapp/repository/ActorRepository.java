@@ -2,6 +2,24 @@ package com.example.movieapp.repository;
 
 import com.example.movieapp.model.Actor;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
 
 public interface ActorRepository extends JpaRepository<Actor,Long> {
+
+    @Query("SELECT DISTINCT m.id FROM Movie m JOIN m.actors a WHERE a.id IN :actorIds")
+    List<Long> findMovieIdsByActorIdIn(@Param("actorIds") Collection<Long> actorIds);
+
+    // the join rows have to go first; the movies themselves stay
+    @Modifying
+    @Query(value = "DELETE FROM movie_actors WHERE actors_id IN (:actorIds)", nativeQuery = true)
+    int removeFromMovies(@Param("actorIds") Collection<Long> actorIds);
+
+    @Modifying
+    @Query("DELETE FROM Actor a WHERE a.id IN :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
 }
@@ -0,0 +1,11 @@
+package com.example.movieapp.repository;
+
+import com.example.movieapp.model.CheckoutOrder;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Optional;
+
+public interface CheckoutOrderRepository extends JpaRepository<CheckoutOrder, Long> {
+
+    Optional<CheckoutOrder> findByIdAndUserUsername(Long id, String username);
+}
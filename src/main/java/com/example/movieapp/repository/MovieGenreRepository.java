@@ -2,6 +2,24 @@ package com.example.movieapp.repository;
 
 import com.example.movieapp.model.MovieGenre;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
 
 public interface MovieGenreRepository extends JpaRepository<MovieGenre,Long> {
+
+    @Query("SELECT g.id FROM MovieGenre g")
+    List<Long> findAllIds();
+
+    // movies of a removed genre are kept, without a genre
+    @Modifying
+    @Query("UPDATE Movie m SET m.movieGenre = NULL WHERE m.movieGenre.id IN :genreIds")
+    int detachMovies(@Param("genreIds") Collection<Long> genreIds);
+
+    @Modifying
+    @Query("DELETE FROM MovieGenre g WHERE g.id IN :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
 }
@@ -1,13 +1,117 @@
 package com.example.movieapp.repository;
 
+import com.example.movieapp.model.GenreStatistics;
 import com.example.movieapp.model.Movie;
 import com.example.movieapp.model.MovieGenre;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface MovieRepository extends JpaRepository<Movie,Long> {
 
+    @Override
+    @EntityGraph(attributePaths = {"movieGenre", "actors"})
+    Optional<Movie> findById(Long id);
+
+    @EntityGraph(attributePaths = {"movieGenre", "actors"})
     List<Movie> findAllByMovieGenre(MovieGenre movieGenre);
 
+    // Keyset (seek) pagination: the Pageable is only used as a LIMIT, the position comes from the cursor.
+    // The page queries only select ids; the cards are then loaded by findDistinctByIdIn, so one page
+    // always costs two statements no matter how many movies, genres and actors it shows.
+
+    @Query("SELECT m.id FROM Movie m ORDER BY m.id")
+    List<Long> findCatalogFirstPage(Pageable limit);
+
+    @Query("SELECT m.id FROM Movie m WHERE m.id > :afterId ORDER BY m.id")
+    List<Long> findCatalogPageAfterId(@Param("afterId") Long afterId, Pageable limit);
+
+    @Query("SELECT m.id FROM Movie m ORDER BY m.name, m.id")
+    List<Long> findCatalogFirstPageByName(Pageable limit);
+
+    @Query("SELECT m.id FROM Movie m WHERE m.name > :afterName OR (m.name = :afterName AND m.id > :afterId) " +
+            "ORDER BY m.name, m.id")
+    List<Long> findCatalogPageAfterName(@Param("afterName") String afterName,
+                                        @Param("afterId") Long afterId,
+                                        Pageable limit);
+
+    @Query("SELECT m.id FROM Movie m ORDER BY m.price, m.id")
+    List<Long> findCatalogFirstPageByPrice(Pageable limit);
+
+    @Query("SELECT m.id FROM Movie m WHERE m.price > :afterPrice OR (m.price = :afterPrice AND m.id > :afterId) " +
+            "ORDER BY m.price, m.id")
+    List<Long> findCatalogPageAfterPrice(@Param("afterPrice") double afterPrice,
+                                         @Param("afterId") Long afterId,
+                                         Pageable limit);
+
+    @EntityGraph(attributePaths = {"movieGenre", "actors"})
+    List<Movie> findDistinctByIdIn(Collection<Long> ids);
+
+    @Query("SELECT new com.example.movieapp.model.GenreStatistics(g.id, COUNT(m), MIN(m.price), AVG(m.price), MAX(m.price)) " +
+            "FROM Movie m JOIN m.movieGenre g GROUP BY g.id")
+    List<GenreStatistics> findGenreStatistics();
+
+    @Query("SELECT new com.example.movieapp.model.GenreStatistics(g.id, COUNT(m), MIN(m.price), AVG(m.price), MAX(m.price)) " +
+            "FROM Movie m JOIN m.movieGenre g WHERE g.id = :movieGenreId GROUP BY g.id")
+    Optional<GenreStatistics> findGenreStatistics(@Param("movieGenreId") Long movieGenreId);
+
+    @Query("SELECT new com.example.movieapp.model.GenreStatistics(g.id, COUNT(m), MIN(m.price), AVG(m.price), MAX(m.price)) " +
+            "FROM Movie m JOIN m.movieGenre g WHERE g.id IN :movieGenreIds GROUP BY g.id")
+    List<GenreStatistics> findGenreStatisticsByIdIn(@Param("movieGenreIds") Collection<Long> movieGenreIds);
+
+    @Query("SELECT m.id FROM Movie m JOIN m.actors a WHERE a.id = :actorId")
+    List<Long> findIdsByActorId(@Param("actorId") Long actorId);
+
+    // Bulk removal: a fixed number of set-based statements per batch of ids, whatever the batch size.
+
+    @Query("SELECT DISTINCT m.movieGenre.id FROM Movie m WHERE m.id IN :ids AND m.movieGenre IS NOT NULL")
+    List<Long> findGenreIdsByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Takes the movies out of every cart. Active carts that lose a movie get a new version, so a checkout
+    // that priced them before fails its version check instead of charging for a movie that is gone.
+    @Modifying
+    @Query(value = "WITH removed AS (DELETE FROM shopping_cart_movies WHERE movies_id IN (:ids) RETURNING shopping_cart_id) " +
+            "UPDATE shopping_cart SET version = version + 1 " +
+            "WHERE status = 'CREATED' AND id IN (SELECT shopping_cart_id FROM removed)", nativeQuery = true)
+    int removeFromShoppingCarts(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query(value = "DELETE FROM movie_actors WHERE movie_id IN (:ids)", nativeQuery = true)
+    int deleteActorLinks(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("DELETE FROM Movie m WHERE m.id IN :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Bulk repricing: one UPDATE per genre or batch of ids, rounded to cents in the database.
+
+    @Modifying
+    @Query(value = "UPDATE movie SET price = ROUND(CAST(price * :factor AS numeric), 2) WHERE movie_genre_id = :genreId",
+            nativeQuery = true)
+    int scalePricesOfGenre(@Param("genreId") Long genreId, @Param("factor") double factor);
+
+    @Modifying
+    @Query("UPDATE Movie m SET m.price = :price WHERE m.id IN :ids")
+    int setPrices(@Param("ids") Collection<Long> ids, @Param("price") double price);
+
+    // Active carts holding a repriced movie get a new version, so a checkout that priced them before
+    // fails its version check instead of charging the old price.
+    @Modifying
+    @Query(value = "UPDATE shopping_cart SET version = version + 1 WHERE status = 'CREATED' AND id IN " +
+            "(SELECT scm.shopping_cart_id FROM shopping_cart_movies scm JOIN movie m ON m.id = scm.movies_id " +
+            "WHERE m.movie_genre_id = :genreId)", nativeQuery = true)
+    int bumpShoppingCartsWithGenre(@Param("genreId") Long genreId);
+
+    @Modifying
+    @Query(value = "UPDATE shopping_cart SET version = version + 1 WHERE status = 'CREATED' AND id IN " +
+            "(SELECT shopping_cart_id FROM shopping_cart_movies WHERE movies_id IN (:ids))", nativeQuery = true)
+    int bumpShoppingCartsWithMovies(@Param("ids") Collection<Long> ids);
+
 }
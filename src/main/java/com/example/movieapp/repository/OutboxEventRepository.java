@@ -0,0 +1,31 @@
+package com.example.movieapp.repository;
+
+import com.example.movieapp.model.OutboxEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    @Query("SELECT e.id FROM OutboxEvent e WHERE e.availableAt <= :now " +
+            "AND (e.lockedUntil IS NULL OR e.lockedUntil < :now) ORDER BY e.id")
+    List<Long> findDueIds(@Param("now") LocalDateTime now, Pageable limit);
+
+    // 1 when this caller won the event; a concurrent worker that lost the race gets 0
+    @Modifying
+    @Transactional
+    @Query("UPDATE OutboxEvent e SET e.lockedUntil = :lockedUntil, e.attempts = e.attempts + 1 " +
+            "WHERE e.id = :id AND (e.lockedUntil IS NULL OR e.lockedUntil < :now)")
+    int claim(@Param("id") Long id, @Param("now") LocalDateTime now, @Param("lockedUntil") LocalDateTime lockedUntil);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE OutboxEvent e SET e.availableAt = :availableAt, e.lockedUntil = NULL WHERE e.id = :id")
+    int reschedule(@Param("id") Long id, @Param("availableAt") LocalDateTime availableAt);
+}
@@ -1,11 +1,17 @@
 package com.example.movieapp.repository;
 
-import com.example.movieapp.model.Movie;
+import com.example.movieapp.model.CartMovieView;
 import com.example.movieapp.model.ShoppingCart;
 import com.example.movieapp.model.ShoppingCartStatus;
 import com.example.movieapp.model.User;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
 import java.util.Optional;
 
 
@@ -13,4 +19,62 @@ public interface ShoppingCartRepository extends JpaRepository<ShoppingCart,Long>
 
     Optional<ShoppingCart> findByUserAndStatus(User user, ShoppingCartStatus status);
 
+    @Override
+    @EntityGraph(attributePaths = {"movies", "movies.movieGenre"})
+    Optional<ShoppingCart> findById(Long id);
+
+    // empty when the cart does not exist, 0 for an existing empty cart
+    @Query("SELECT COALESCE(SUM(m.price), 0) FROM ShoppingCart c LEFT JOIN c.movies m WHERE c.id = :cartId GROUP BY c.id")
+    Optional<Double> findTotalPrice(@Param("cartId") Long cartId);
+
+    @Query("SELECT m.id AS id, m.name AS name, m.imageUrl AS imageUrl, m.price AS price, g.name AS movieGenreName " +
+            "FROM ShoppingCart c JOIN c.movies m LEFT JOIN m.movieGenre g WHERE c.id = :cartId ORDER BY m.name, m.id")
+    List<CartMovieView> findCartMovieViews(@Param("cartId") Long cartId);
+
+    // Relies on the partial unique index on (user_username) WHERE status = 'CREATED' from schema-postgresql.sql:
+    // concurrent callers all end up with the same active cart instead of one each.
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO shopping_cart (id, date_created, status, version, user_username) " +
+            "VALUES (nextval('shopping_cart_seq'), now(), 'CREATED', 0, :username) " +
+            "ON CONFLICT (user_username) WHERE status = 'CREATED' DO NOTHING", nativeQuery = true)
+    int insertActiveCartIfAbsent(@Param("username") String username);
+
+    // Version check for cart mutations: 0 when the cart was changed or checked out since it was read.
+    // Has to run inside the caller's transaction so that the membership change commits with it.
+    @Modifying
+    @Query("UPDATE ShoppingCart c SET c.version = c.version + 1 " +
+            "WHERE c.id = :cartId AND c.version = :version AND c.status = com.example.movieapp.model.ShoppingCartStatus.CREATED")
+    int bumpVersion(@Param("cartId") Long cartId, @Param("version") Long version);
+
+    // Checkout: same version check as bumpVersion, and the cart stops being the user's active cart.
+    @Modifying
+    @Query("UPDATE ShoppingCart c SET c.status = com.example.movieapp.model.ShoppingCartStatus.FINISHED, c.version = c.version + 1 " +
+            "WHERE c.id = :cartId AND c.version = :version AND c.status = com.example.movieapp.model.ShoppingCartStatus.CREATED")
+    int finishCart(@Param("cartId") Long cartId, @Param("version") Long version);
+
+    // Gives a cart back to its user after a failed payment, unless the user has started a new cart since.
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE shopping_cart c SET status = 'CREATED', version = version + 1 " +
+            "WHERE c.id = :cartId AND c.status = 'FINISHED' AND NOT EXISTS " +
+            "(SELECT 1 FROM shopping_cart a WHERE a.user_username = c.user_username AND a.status = 'CREATED')",
+            nativeQuery = true)
+    int reopenCart(@Param("cartId") Long cartId);
+
+    // Cart membership is written one join row at a time, without loading the cart's movie set.
+    // The (shopping_cart_id, movies_id) unique constraint makes a duplicate insert a no-op returning 0.
+
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO shopping_cart_movies (shopping_cart_id, movies_id) VALUES (:cartId, :movieId) " +
+            "ON CONFLICT DO NOTHING", nativeQuery = true)
+    int addMovie(@Param("cartId") Long cartId, @Param("movieId") Long movieId);
+
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM shopping_cart_movies WHERE shopping_cart_id = :cartId AND movies_id = :movieId",
+            nativeQuery = true)
+    int removeMovie(@Param("cartId") Long cartId, @Param("movieId") Long movieId);
+
 }
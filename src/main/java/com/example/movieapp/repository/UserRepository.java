@@ -2,11 +2,15 @@ package com.example.movieapp.repository;
 
 
 import com.example.movieapp.model.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -18,4 +22,22 @@ public interface UserRepository extends JpaRepository<User , String> {
     Optional<User> findByUsernameAndPassword(String username, String password);
 
     Optional<User> findByUsername(String username);
+
+    @Query("SELECT u.username FROM User u WHERE u.username > :after ORDER BY u.username")
+    List<String> findUsernamesAfter(@Param("after") String after, Pageable limit);
+
+    // 0 when the username is taken
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO movie_shop_users (username, email, password, role, is_account_non_expired, " +
+            "is_account_non_locked, is_credentials_non_expired, is_enabled) " +
+            "VALUES (:username, :email, :password, :role, true, true, true, true) ON CONFLICT (username) DO NOTHING",
+            nativeQuery = true)
+    int insertIfAbsent(@Param("username") String username, @Param("email") String email,
+                       @Param("password") String password, @Param("role") String role);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE User u SET u.password = :password WHERE u.username = :username")
+    int updatePassword(@Param("username") String username, @Param("password") String password);
 }
@@ -2,6 +2,7 @@ package com.example.movieapp.service;
 
 import com.example.movieapp.model.Actor;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,4 +18,9 @@ public interface ActorService {
 
     boolean delete(Long id);
 
+    /**
+     * Deletes the actors and their movie links with set-based statements and returns how many existed.
+     */
+    int deleteActors(Collection<Long> ids);
+
 }
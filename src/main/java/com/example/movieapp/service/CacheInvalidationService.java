@@ -0,0 +1,29 @@
+package com.example.movieapp.service;
+
+import java.util.function.Consumer;
+
+/**
+ * Keeps in-process caches coherent across application nodes. A node that changes cached data
+ * publishes the region (a cache name or another in-memory structure) and key it invalidated; every
+ * other node evicts the same entry. A {@code null} key stands for the whole region.
+ */
+public interface CacheInvalidationService {
+
+    void publish(String region, Long key);
+
+    /**
+     * Handles invalidations of a region that is not a Spring cache. The handler also receives
+     * {@code null} when the node may have missed invalidations and has to drop everything it holds.
+     */
+    void onInvalidation(String region, Consumer<Long> handler);
+
+    /**
+     * Publishes a region keyed by name rather than id, such as usernames. Names may contain any character.
+     */
+    void publishName(String region, String name);
+
+    /**
+     * Handles a region published with {@link #publishName}; {@code null} again means drop everything.
+     */
+    void onNameInvalidation(String region, Consumer<String> handler);
+}
@@ -0,0 +1,16 @@
+package com.example.movieapp.service;
+
+import com.example.movieapp.model.CatalogImportFormat;
+import com.example.movieapp.model.CatalogImportResult;
+
+import java.io.InputStream;
+
+public interface CatalogImportService {
+
+    /**
+     * Streams movies from the input, creating the genres and actors they name when missing, and
+     * commits them in chunks. Rows without a name or a valid price are skipped.
+     */
+    CatalogImportResult importCatalog(InputStream input, CatalogImportFormat format);
+
+}
@@ -0,0 +1,15 @@
+package com.example.movieapp.service;
+
+import com.example.movieapp.model.ChargeRequest;
+import com.example.movieapp.model.CheckoutOrder;
+
+public interface CheckoutService {
+
+    /**
+     * Places an order for the user's active cart and returns its id. Requests carrying an idempotency key
+     * that was already used return the order placed the first time.
+     */
+    Long placeOrder(String username, ChargeRequest chargeRequest);
+
+    CheckoutOrder getOrder(Long orderId, String username);
+}
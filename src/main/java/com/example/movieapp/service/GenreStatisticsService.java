@@ -0,0 +1,21 @@
+package com.example.movieapp.service;
+
+import com.example.movieapp.model.GenreStatistics;
+
+import java.util.Map;
+
+public interface GenreStatisticsService {
+
+    GenreStatistics getStatistics(Long movieGenreId);
+
+    Map<Long, GenreStatistics> getAllStatistics();
+
+    void movieAdded(Long movieGenreId, double price);
+
+    void movieRemoved(Long movieGenreId, double price);
+
+    void invalidate(Long movieGenreId);
+
+    void reload();
+
+}
@@ -2,6 +2,7 @@ package com.example.movieapp.service;
 
 import com.example.movieapp.model.MovieGenre;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,4 +18,10 @@ public interface MovieGenreService {
 
     boolean deleteMovieGenre(Long movieGenreId);
 
+    /**
+     * Deletes the genres with set-based statements, keeping their movies without a genre, and returns
+     * how many existed.
+     */
+    int deleteMovieGenres(Collection<Long> movieGenreIds);
+
 }
@@ -0,0 +1,24 @@
+package com.example.movieapp.service;
+
+import com.example.movieapp.model.Movie;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface MovieSearchService {
+
+    List<Long> search(String query, int limit);
+
+    void index(Movie movie);
+
+    void remove(Long movieId);
+
+    void remove(Collection<Long> movieIds);
+
+    void reindexMoviesWithActor(Long actorId);
+
+    void reindex(Collection<Long> movieIds);
+
+    void rebuild();
+
+}
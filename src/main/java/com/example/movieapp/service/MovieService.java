@@ -3,7 +3,10 @@ package com.example.movieapp.service;
 import com.example.movieapp.model.Actor;
 import com.example.movieapp.model.Movie;
 import com.example.movieapp.model.MovieGenre;
+import com.example.movieapp.model.MoviePage;
+import com.example.movieapp.model.MovieSortKey;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,10 +20,30 @@ public interface MovieService {
 
     List<Movie> getAllMovies();
 
+    MoviePage getMoviePage(MovieSortKey sortKey, Long afterId, String afterValue, int size);
+
+    List<Movie> searchMovies(String query, int limit);
+
     List<Movie> findAllMoviesFromMovieGenre(Long movieGenreId);
 
     boolean deleteMovie(Long movieId);
 
+    /**
+     * Deletes the movies with set-based statements and returns how many existed.
+     */
+    int deleteMovies(Collection<Long> movieIds);
+
+    /**
+     * Changes the price of every movie in the genre by the given percentage (-20 for a 20% sale) and
+     * returns how many movies were repriced.
+     */
+    int changePricesOfGenre(Long movieGenreId, double percent);
+
+    /**
+     * Sets one price on all the given movies and returns how many were repriced.
+     */
+    int setPrices(Collection<Long> movieIds, double price);
+
     int getNumberOfMoviesFromGenre(Long movieGenreId);
 
 
@@ -0,0 +1,20 @@
+package com.example.movieapp.service;
+
+import com.example.movieapp.model.ChargeRequest;
+import com.example.movieapp.model.PaymentResult;
+import com.example.movieapp.model.exceptions.PaymentFailedException;
+
+public interface PaymentGateway {
+
+    /**
+     * Qualifier of the gateway that talks to the payment provider; the primary gateway wraps it.
+     */
+    String PROVIDER = "paymentProvider";
+
+    /**
+     * Charges the payment source of the request.
+     *
+     * @throws PaymentFailedException when the charge was refused or the provider could not be reached
+     */
+    PaymentResult charge(ChargeRequest chargeRequest);
+}
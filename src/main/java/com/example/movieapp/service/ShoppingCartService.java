@@ -1,5 +1,6 @@
 package com.example.movieapp.service;
 
+import com.example.movieapp.model.CartMovieView;
 import com.example.movieapp.model.Movie;
 import com.example.movieapp.model.ShoppingCart;
 
@@ -15,6 +16,8 @@ public interface ShoppingCartService {
 
     List<Movie> listAllMoviesInShoppingCart(Long cartId);
 
+    List<CartMovieView> listCartMovieViews(Long cartId);
+
     ShoppingCart getActiveShoppingCart(String username);
 
     ShoppingCart addMovieToShoppingCart(String username, Long movieId);
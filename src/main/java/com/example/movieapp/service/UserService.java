@@ -2,9 +2,10 @@ package com.example.movieapp.service;
 
 import com.example.movieapp.model.Role;
 import com.example.movieapp.model.User;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 
-public interface UserService extends UserDetailsService {
+public interface UserService extends UserDetailsService, UserDetailsPasswordService {
 
     void processOAuthPostLogin(String username, String email);
 
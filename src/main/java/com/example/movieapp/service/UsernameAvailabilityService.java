@@ -0,0 +1,10 @@
+package com.example.movieapp.service;
+
+public interface UsernameAvailabilityService {
+
+    boolean isAvailable(String username);
+
+    void registered(String username);
+
+    void reload();
+}
@@ -1,48 +1,91 @@
 package com.example.movieapp.service.impl;
 
+import com.example.movieapp.config.CacheConfig;
+import com.example.movieapp.config.EvictCatalogCaches;
 import com.example.movieapp.model.Actor;
 import com.example.movieapp.model.exceptions.ActorNotFound;
 import com.example.movieapp.repository.ActorRepository;
 import com.example.movieapp.service.ActorService;
+import com.example.movieapp.service.MovieSearchService;
+import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 public class ActorServiceImpl implements ActorService {
 
     private final ActorRepository actorRepository;
+    private final MovieSearchService movieSearchService;
 
-    public ActorServiceImpl(ActorRepository actorRepository) {
+    public ActorServiceImpl(ActorRepository actorRepository, MovieSearchService movieSearchService) {
         this.actorRepository = actorRepository;
+        this.movieSearchService = movieSearchService;
     }
 
     @Override
+    @Transactional
     public Optional<Actor> addNewActor(String name) {
         Actor actor= new Actor(name);
         return Optional.of(this.actorRepository.save(actor));
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<Actor> getAllActors() {
         return this.actorRepository.findAll();
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Optional<Actor> getActorById(Long id) {
         return this.actorRepository.findById(id);
     }
 
     @Override
+    @Transactional
+    @EvictCatalogCaches
+    @CacheEvict(cacheNames = CacheConfig.MOVIES, allEntries = true)
     public Optional<Actor> updateActor(Long id, String name) {
         Actor actor=this.actorRepository.findById(id).orElseThrow(ActorNotFound::new);
         actor.setName(name);
-        return Optional.of(this.actorRepository.save(actor));
+        Actor savedActor = this.actorRepository.save(actor);
+        this.movieSearchService.reindexMoviesWithActor(id);
+        return Optional.of(savedActor);
     }
 
     @Override
+    @Transactional
+    @EvictCatalogCaches
+    @CacheEvict(cacheNames = CacheConfig.MOVIES, allEntries = true)
     public boolean delete(Long id) {
+        this.actorRepository.findById(id).orElseThrow(ActorNotFound::new);
+        List<Long> movieIds = this.actorRepository.findMovieIdsByActorIdIn(List.of(id));
+        this.actorRepository.removeFromMovies(List.of(id));
         this.actorRepository.deleteById(id);
-        return this.actorRepository.findById(id).isEmpty();    }
+        this.movieSearchService.reindex(movieIds);
+        return true;
+    }
+
+    @Override
+    @Transactional
+    @EvictCatalogCaches
+    @CacheEvict(cacheNames = CacheConfig.MOVIES, allEntries = true)
+    public int deleteActors(Collection<Long> ids) {
+        int deleted = 0;
+        Set<Long> movieIds = new HashSet<>();
+        for (List<Long> chunk : IdChunks.of(ids, IdChunks.DEFAULT_SIZE)) {
+            movieIds.addAll(this.actorRepository.findMovieIdsByActorIdIn(chunk));
+            this.actorRepository.removeFromMovies(chunk);
+            deleted += this.actorRepository.deleteByIdIn(chunk);
+        }
+        // the movies stay, only their search entries lose the actor names
+        this.movieSearchService.reindex(movieIds);
+        return deleted;
+    }
 }
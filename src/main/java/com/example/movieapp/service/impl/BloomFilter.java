@@ -0,0 +1,79 @@
+package com.example.movieapp.service.impl;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom filter over strings. Sized for an expected number of entries and false positive rate; adding
+ * is lock-free, so it can be updated while it is being read.
+ */
+class BloomFilter {
+
+    private final AtomicLongArray bits;
+    private final long bitCount;
+    private final int hashCount;
+    private final long capacity;
+    private final AtomicLong size = new AtomicLong();
+
+    BloomFilter(long expectedEntries, double falsePositiveRate) {
+        long entries = Math.max(1, expectedEntries);
+        long bitCount = (long) Math.ceil(-entries * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        this.bits = new AtomicLongArray((int) Math.max(1, (bitCount + 63) / 64));
+        this.bitCount = this.bits.length() * 64L;
+        this.hashCount = Math.max(1, (int) Math.round((double) this.bitCount / entries * Math.log(2)));
+        this.capacity = entries;
+    }
+
+    void add(String value) {
+        long hash = hash(value);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= this.hashCount; i++) {
+            long bit = Math.floorMod(h1 + (long) i * h2, this.bitCount);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long current;
+            do {
+                current = this.bits.get(word);
+                if ((current & mask) != 0)
+                    break;
+            } while (!this.bits.compareAndSet(word, current, current | mask));
+        }
+        this.size.incrementAndGet();
+    }
+
+    /**
+     * False means the value was never added; true means it probably was.
+     */
+    boolean mightContain(String value) {
+        long hash = hash(value);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= this.hashCount; i++) {
+            long bit = Math.floorMod(h1 + (long) i * h2, this.bitCount);
+            if ((this.bits.get((int) (bit >>> 6)) & (1L << bit)) == 0)
+                return false;
+        }
+        return true;
+    }
+
+    boolean isOverCapacity() {
+        return this.size.get() > this.capacity;
+    }
+
+    // 64-bit FNV-1a followed by the murmur3 finalizer, split into the two hashes for double hashing
+    private static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
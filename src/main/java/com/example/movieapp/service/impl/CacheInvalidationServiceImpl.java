@@ -0,0 +1,308 @@
+package com.example.movieapp.service.impl;
+
+import com.example.movieapp.config.ReplicaRoutingDataSource;
+import com.example.movieapp.service.CacheInvalidationService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PreDestroy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Cache invalidation over Postgres LISTEN/NOTIFY. Messages are {@code node|sequence|region|key} on the
+ * {@value #CHANNEL} channel, the key being an id or a name (which may itself contain {@code |}). An invalidation published inside a transaction is only sent once that
+ * transaction commits, and nothing is sent when it rolls back, so other nodes never evict ahead of the
+ * write they are told about.
+ * <p>
+ * Published messages are queued and sent by a single sender thread, which numbers each one as it sends
+ * it on a pooled connection of its own, so they are delivered in the order they are numbered and a
+ * committing request never waits for a second connection. A message that does not fit the queue is
+ * dropped and its number skipped. A receiver that sees a
+ * number skipped in a node's sequence (a lost message) or that had to reconnect its listening connection
+ * cannot tell what it missed, so it clears every cache and region instead. A number at or below the last
+ * one seen is a late duplicate: it is applied but does not move the sequence back. The listener holds
+ * its own connection outside the pool.
+ * <p>
+ * An invalidation means another node committed a write that a read replica may not have replayed yet.
+ * With a replica configured, reads are pinned to the primary before evicting, so the entries refilled
+ * after the eviction are not loaded from the old replica data.
+ */
+@Slf4j
+@Service
+public class CacheInvalidationServiceImpl implements CacheInvalidationService {
+
+    static final String CHANNEL = "cache_invalidation";
+    private static final long MAX_RECONNECT_DELAY_MS = 30_000;
+    private static final int MAX_QUEUED_MESSAGES = 10_000;
+
+    private final CacheManager cacheManager;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectProvider<ReplicaRoutingDataSource> replicaRoutingDataSource;
+    private final boolean enabled;
+    private final String url;
+    private final String username;
+    private final String password;
+    private final int pollMillis;
+    private final String nodeId = UUID.randomUUID().toString();
+    private final AtomicLong sequence = new AtomicLong();
+    private final BlockingQueue<String> outbox = new LinkedBlockingQueue<>(MAX_QUEUED_MESSAGES);
+    private final Map<String, Long> lastSequences = new ConcurrentHashMap<>();
+    private final Map<String, Consumer<Long>> handlers = new ConcurrentHashMap<>();
+    private final Map<String, Consumer<String>> nameHandlers = new ConcurrentHashMap<>();
+    private final Counter published;
+    private final Counter publishFailures;
+    private final Counter received;
+    private final MeterRegistry meterRegistry;
+    private volatile Thread listener;
+    private volatile Thread sender;
+
+    public CacheInvalidationServiceImpl(CacheManager cacheManager, JdbcTemplate jdbcTemplate,
+                                        ObjectProvider<ReplicaRoutingDataSource> replicaRoutingDataSource,
+                                        MeterRegistry meterRegistry,
+                                        @Value("${app.cache.invalidation.enabled:false}") boolean enabled,
+                                        @Value("${spring.datasource.url:}") String url,
+                                        @Value("${spring.datasource.username:}") String username,
+                                        @Value("${spring.datasource.password:}") String password,
+                                        @Value("${app.cache.invalidation.poll-ms:1000}") int pollMillis) {
+        this.cacheManager = cacheManager;
+        this.jdbcTemplate = jdbcTemplate;
+        this.replicaRoutingDataSource = replicaRoutingDataSource;
+        this.enabled = enabled;
+        this.url = url;
+        this.username = username;
+        this.password = password;
+        this.pollMillis = pollMillis;
+        this.meterRegistry = meterRegistry;
+        this.published = Counter.builder("cache.invalidation.published").register(meterRegistry);
+        this.publishFailures = Counter.builder("cache.invalidation.publish.failures").register(meterRegistry);
+        this.received = Counter.builder("cache.invalidation.received").register(meterRegistry);
+    }
+
+    @Override
+    public void publish(String region, Long key) {
+        this.publishMessage(region, key == null ? "" : key.toString());
+    }
+
+    @Override
+    public void publishName(String region, String name) {
+        this.publishMessage(region, name == null ? "" : name);
+    }
+
+    private void publishMessage(String region, String key) {
+        if (!this.enabled)
+            return;
+        String message = region + "|" + key;
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            enqueue(message);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                enqueue(message);
+            }
+        });
+    }
+
+    private void enqueue(String message) {
+        if (this.outbox.offer(message))
+            return;
+        // the skipped number makes the other nodes resync when our next message arrives
+        this.sequence.incrementAndGet();
+        this.publishFailures.increment();
+        log.warn("Cache invalidation queue full, dropped {}", message);
+    }
+
+    /**
+     * Sends everything queued so far on the calling thread.
+     */
+    void sendQueued() {
+        String message;
+        while ((message = this.outbox.poll()) != null)
+            send(message);
+    }
+
+    private void sendLoop() {
+        while (this.sender == Thread.currentThread()) {
+            try {
+                send(this.outbox.take());
+            } catch (InterruptedException interrupted) {
+                return;
+            }
+        }
+    }
+
+    private synchronized void send(String message) {
+        String payload = this.nodeId + "|" + this.sequence.incrementAndGet() + "|" + message;
+        try {
+            this.jdbcTemplate.query("SELECT pg_notify(?, ?)", resultSet -> null, CHANNEL, payload);
+            this.published.increment();
+        } catch (DataAccessException exception) {
+            // the other nodes see a gap in our sequence with the next message and resync
+            this.publishFailures.increment();
+            log.warn("Could not publish cache invalidation {}: {}", payload, exception.getMessage());
+        }
+    }
+
+    @Override
+    public void onInvalidation(String region, Consumer<Long> handler) {
+        this.handlers.put(region, handler);
+    }
+
+    @Override
+    public void onNameInvalidation(String region, Consumer<String> handler) {
+        this.nameHandlers.put(region, handler);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        if (!this.enabled || this.listener != null)
+            return;
+        Thread thread = new Thread(this::listen, "cache-invalidation-listener");
+        thread.setDaemon(true);
+        this.listener = thread;
+        thread.start();
+        Thread senderThread = new Thread(this::sendLoop, "cache-invalidation-sender");
+        senderThread.setDaemon(true);
+        this.sender = senderThread;
+        senderThread.start();
+    }
+
+    @PreDestroy
+    public synchronized void stop() throws InterruptedException {
+        Thread senderThread = this.sender;
+        this.sender = null;
+        if (senderThread != null) {
+            senderThread.interrupt();
+            senderThread.join(TimeUnit.SECONDS.toMillis(5));
+            // what the sender had not taken yet still goes out before the pool closes
+            sendQueued();
+        }
+        Thread thread = this.listener;
+        this.listener = null;
+        if (thread != null) {
+            thread.interrupt();
+            thread.join(TimeUnit.SECONDS.toMillis(5));
+        }
+    }
+
+    private void listen() {
+        long reconnectDelay = 1000;
+        while (this.listener == Thread.currentThread()) {
+            try (Connection connection = DriverManager.getConnection(this.url, this.username, this.password)) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+                // anything cached before LISTEN took effect may have missed its invalidation
+                resync("connect");
+                reconnectDelay = 1000;
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (this.listener == Thread.currentThread()) {
+                    PGNotification[] notifications = pgConnection.getNotifications(this.pollMillis);
+                    if (notifications != null)
+                        for (PGNotification notification : notifications)
+                            handle(notification.getParameter());
+                }
+            } catch (SQLException exception) {
+                if (this.listener != Thread.currentThread())
+                    return;
+                log.warn("Cache invalidation listener lost its connection, reconnecting in {} ms: {}",
+                        reconnectDelay, exception.getMessage());
+                try {
+                    Thread.sleep(reconnectDelay);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+                reconnectDelay = Math.min(reconnectDelay * 2, MAX_RECONNECT_DELAY_MS);
+            }
+        }
+    }
+
+    void handle(String payload) {
+        String[] parts = payload.split("\\|", 4);
+        if (parts.length != 4) {
+            log.warn("Ignoring malformed cache invalidation {}", payload);
+            return;
+        }
+        String origin = parts[0];
+        if (origin.equals(this.nodeId))
+            return;
+        this.received.increment();
+        this.pinReadsToPrimary();
+        long sequence = Long.parseLong(parts[1]);
+        Long previous = this.lastSequences.get(origin);
+        this.lastSequences.merge(origin, sequence, Math::max);
+        // the first message of a node we have not heard from since connecting cannot have a gap we missed
+        if (previous != null && sequence > previous + 1) {
+            resync("gap");
+            return;
+        }
+        invalidate(parts[2], parts[3].isEmpty() ? null : parts[3]);
+    }
+
+    private void invalidate(String region, String name) {
+        Consumer<String> nameHandler = this.nameHandlers.get(region);
+        if (nameHandler != null) {
+            nameHandler.accept(name);
+            return;
+        }
+        Long key = name == null ? null : Long.valueOf(name);
+        Consumer<Long> handler = this.handlers.get(region);
+        if (handler != null) {
+            handler.accept(key);
+            return;
+        }
+        Cache cache = this.cacheManager.getCache(region);
+        if (cache == null)
+            return;
+        if (key == null)
+            cache.clear();
+        else
+            cache.evict(key);
+    }
+
+    void resync(String reason) {
+        this.meterRegistry.counter("cache.invalidation.resyncs", "reason", reason).increment();
+        this.pinReadsToPrimary();
+        this.cacheManager.getCacheNames().forEach(name -> {
+            Cache cache = this.cacheManager.getCache(name);
+            if (cache != null)
+                cache.clear();
+        });
+        this.handlers.values().forEach(handler -> handler.accept(null));
+        this.nameHandlers.values().forEach(handler -> handler.accept(null));
+    }
+
+    private void pinReadsToPrimary() {
+        this.replicaRoutingDataSource.ifAvailable(ReplicaRoutingDataSource::pinToPrimary);
+    }
+
+    String getNodeId() {
+        return this.nodeId;
+    }
+}
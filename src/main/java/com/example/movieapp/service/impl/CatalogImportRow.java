@@ -0,0 +1,31 @@
+package com.example.movieapp.service.impl;
+
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * One movie as read from an import file, before validation. The genre and the actors are names.
+ */
+@Getter
+class CatalogImportRow {
+
+    private final long line;
+    private final String name;
+    private final String description;
+    private final String price;
+    private final String movieGenre;
+    private final String imageUrl;
+    private final List<String> actors;
+
+    CatalogImportRow(long line, String name, String description, String price, String movieGenre, String imageUrl,
+                     List<String> actors) {
+        this.line = line;
+        this.name = name;
+        this.description = description;
+        this.price = price;
+        this.movieGenre = movieGenre;
+        this.imageUrl = imageUrl;
+        this.actors = actors;
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.movieapp.service.impl;
+
+import com.example.movieapp.model.CatalogImportFormat;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * Reads import rows one at a time, so an import holds a single chunk of rows in memory however
+ * large the file is.
+ */
+interface CatalogRowReader extends Closeable {
+
+    /**
+     * The next row, or null at the end of the input.
+     */
+    CatalogImportRow next() throws IOException;
+
+    static CatalogRowReader open(InputStream input, CatalogImportFormat format) throws IOException {
+        return format == CatalogImportFormat.JSON ? new JsonCatalogRowReader(input) : new CsvCatalogRowReader(input);
+    }
+
+    // actor lists written as one field: "Actor One|Actor Two"
+    static List<String> splitActors(String actors) {
+        if (actors == null || actors.isBlank())
+            return new ArrayList<>();
+        return Arrays.stream(actors.split("\\|"))
+                .map(String::trim)
+                .filter(name -> !name.isEmpty())
+                .collect(Collectors.toList());
+    }
+
+    static String trimToNull(String value) {
+        if (value == null)
+            return null;
+        String trimmed = value.trim();
+        return trimmed.isEmpty() ? null : trimmed;
+    }
+
+    static List<String> trimAll(List<String> values) {
+        return values.stream().map(CatalogRowReader::trimToNull).filter(Objects::nonNull).collect(Collectors.toList());
+    }
+}
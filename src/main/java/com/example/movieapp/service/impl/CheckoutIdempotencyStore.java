@@ -0,0 +1,105 @@
+package com.example.movieapp.service.impl;
+
+import com.example.movieapp.model.IdempotencyRecord;
+import com.example.movieapp.repository.IdempotencyRecordRepository;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Maps checkout idempotency keys to the order they produced. The first request for a key places the
+ * order; a concurrent duplicate waits for that same in-flight attempt and a later one gets its result
+ * from memory, so neither touches the database or the payment gateway again. Distinct keys never wait
+ * for each other. Keys survive restarts and other nodes through {@link IdempotencyRecord}, which the
+ * order placement writes in its own transaction. Both the memory entries and the records expire after
+ * {@link #TTL}. A failed attempt is not remembered, so the user can try again with the same key.
+ */
+@Component
+public class CheckoutIdempotencyStore {
+
+    static final Duration TTL = Duration.ofHours(24);
+
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    public CheckoutIdempotencyStore(IdempotencyRecordRepository idempotencyRecordRepository) {
+        this.idempotencyRecordRepository = idempotencyRecordRepository;
+    }
+
+    /**
+     * Returns the id of the order placed for the key, calling placeOrder only if there is none yet.
+     */
+    public Long execute(String key, Supplier<Long> placeOrder) {
+        Entry entry = new Entry(LocalDateTime.now());
+        Entry existing = this.entries.putIfAbsent(key, entry);
+        if (existing != null)
+            return existing.await();
+
+        try {
+            Long orderId = this.idempotencyRecordRepository.findById(key)
+                    .map(IdempotencyRecord::getOrderId)
+                    .orElseGet(() -> this.placeOrder(key, placeOrder));
+            entry.result.complete(orderId);
+            return orderId;
+        } catch (RuntimeException exception) {
+            this.entries.remove(key, entry);
+            entry.result.completeExceptionally(exception);
+            throw exception;
+        }
+    }
+
+    private Long placeOrder(String key, Supplier<Long> placeOrder) {
+        try {
+            return placeOrder.get();
+        } catch (DataIntegrityViolationException | ObjectOptimisticLockingFailureException exception) {
+            // another node placed the order for this key first: its record insert beat ours, or its
+            // finished cart failed our version check before we got to the insert
+            return this.idempotencyRecordRepository.findById(key)
+                    .map(IdempotencyRecord::getOrderId)
+                    .orElseThrow(() -> exception);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.checkout.idempotency-sweep-ms:600000}")
+    public void evictExpired() {
+        this.evictExpired(LocalDateTime.now());
+    }
+
+    void evictExpired(LocalDateTime now) {
+        LocalDateTime cutoff = now.minus(TTL);
+        this.entries.values().removeIf(entry -> entry.createdAt.isBefore(cutoff) && entry.result.isDone());
+        this.idempotencyRecordRepository.deleteCreatedBefore(cutoff);
+    }
+
+    int size() {
+        return this.entries.size();
+    }
+
+    private static class Entry {
+        private final LocalDateTime createdAt;
+        private final CompletableFuture<Long> result = new CompletableFuture<>();
+
+        Entry(LocalDateTime createdAt) {
+            this.createdAt = createdAt;
+        }
+
+        Long await() {
+            try {
+                return this.result.join();
+            } catch (CompletionException exception) {
+                if (exception.getCause() instanceof RuntimeException)
+                    throw (RuntimeException) exception.getCause();
+                throw exception;
+            }
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.example.movieapp.service.impl;
+
+import com.example.movieapp.config.CheckoutConfig;
+import com.example.movieapp.model.ChargeRequest;
+import com.example.movieapp.model.CheckoutOrder;
+import com.example.movieapp.model.OrderStatus;
+import com.example.movieapp.model.OutboxEvent;
+import com.example.movieapp.model.PaymentResult;
+import com.example.movieapp.model.exceptions.PaymentFailedException;
+import com.example.movieapp.repository.CheckoutOrderRepository;
+import com.example.movieapp.repository.OutboxEventRepository;
+import com.example.movieapp.repository.ShoppingCartRepository;
+import com.example.movieapp.service.PaymentGateway;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Drains the checkout outbox: claims due events and charges them on the checkout executor. A refused
+ * payment fails the order and gives the cart back to the user; an unreachable provider is retried with
+ * exponential backoff until {@link #MAX_ATTEMPTS}.
+ * <p>
+ * Running out of attempts is not a refusal: a timed-out call may still have charged the card. The order
+ * becomes {@link OrderStatus#PAYMENT_UNKNOWN}, the cart stays closed, and the event is replayed every
+ * {@link #RECONCILE_INTERVAL} with the same idempotency key, so the provider answers with the outcome of
+ * the original charge if it happened. That only holds while the provider keeps the key (24 hours for
+ * Stripe); after {@link #RECONCILE_WINDOW} the order is left for manual review instead.
+ */
+@Slf4j
+@Component
+public class CheckoutOutboxWorker {
+
+    static final int MAX_ATTEMPTS = 5;
+    static final Duration RECONCILE_INTERVAL = Duration.ofMinutes(15);
+    static final Duration RECONCILE_WINDOW = Duration.ofHours(23);
+    static final String PAYMENT_UNKNOWN_REASON =
+            "We could not confirm your payment yet. We are checking with the payment provider; you will not be charged twice.";
+    private static final int MAX_IN_FLIGHT = 32;
+    private static final Duration LEASE = Duration.ofMinutes(2);
+    private static final Duration MAX_BACKOFF = Duration.ofMinutes(5);
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final CheckoutOrderRepository checkoutOrderRepository;
+    private final ShoppingCartRepository shoppingCartRepository;
+    private final PaymentGateway paymentGateway;
+    private final TransactionTemplate transactionTemplate;
+    private final Executor executor;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    public CheckoutOutboxWorker(OutboxEventRepository outboxEventRepository, CheckoutOrderRepository checkoutOrderRepository,
+                                ShoppingCartRepository shoppingCartRepository, PaymentGateway paymentGateway,
+                                PlatformTransactionManager transactionManager,
+                                @Qualifier(CheckoutConfig.CHECKOUT_EXECUTOR) Executor executor) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.checkoutOrderRepository = checkoutOrderRepository;
+        this.shoppingCartRepository = shoppingCartRepository;
+        this.paymentGateway = paymentGateway;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.executor = executor;
+    }
+
+    @Scheduled(fixedDelayString = "${app.checkout.poll-interval-ms:500}")
+    public void drain() {
+        int capacity = MAX_IN_FLIGHT - this.inFlight.get();
+        if (capacity <= 0)
+            return;
+        LocalDateTime now = LocalDateTime.now();
+        for (Long eventId : this.outboxEventRepository.findDueIds(now, PageRequest.of(0, capacity))) {
+            if (this.outboxEventRepository.claim(eventId, now, now.plus(LEASE)) == 0)
+                continue;
+            this.inFlight.incrementAndGet();
+            try {
+                this.executor.execute(() -> {
+                    try {
+                        this.process(eventId);
+                    } finally {
+                        this.inFlight.decrementAndGet();
+                    }
+                });
+            } catch (RejectedExecutionException exception) {
+                // the lease runs out and the event is picked up again
+                this.inFlight.decrementAndGet();
+                return;
+            }
+        }
+    }
+
+    void process(Long eventId) {
+        OutboxEvent event = this.outboxEventRepository.findById(eventId).orElse(null);
+        if (event == null)
+            return;
+        CheckoutOrder order = this.checkoutOrderRepository.findById(event.getOrderId()).orElse(null);
+        if (order == null || (order.getStatus() != OrderStatus.PENDING && order.getStatus() != OrderStatus.PAYMENT_UNKNOWN)) {
+            this.outboxEventRepository.deleteById(eventId);
+            return;
+        }
+
+        PaymentResult result;
+        try {
+            result = this.paymentGateway.charge(chargeRequest(order, event));
+        } catch (PaymentFailedException exception) {
+            if (!exception.isRetryable()) {
+                // a definite refusal, the only outcome that gives the cart back
+                this.settle(eventId, order.getId(), OrderStatus.FAILED, null,
+                        exception.getMessage() != null ? exception.getMessage() : "Payment failed");
+            } else if (order.getStatus() == OrderStatus.PENDING && event.getAttempts() < MAX_ATTEMPTS) {
+                log.warn("Payment for order {} failed on attempt {}, retrying: {}", order.getId(), event.getAttempts(), exception.getMessage());
+                this.outboxEventRepository.reschedule(eventId, LocalDateTime.now().plus(backoff(event.getAttempts())));
+            } else {
+                this.reconcileLater(eventId, order, exception.getMessage());
+            }
+            return;
+        }
+        this.settle(eventId, order.getId(), OrderStatus.PAID, result.getChargeId(), null);
+    }
+
+    private void reconcileLater(Long eventId, CheckoutOrder order, String lastFailure) {
+        boolean windowOver = LocalDateTime.now().isAfter(order.getDateCreated().plus(RECONCILE_WINDOW));
+        this.transactionTemplate.executeWithoutResult(transaction -> {
+            if (order.getStatus() == OrderStatus.PENDING) {
+                CheckoutOrder current = this.checkoutOrderRepository.findById(order.getId()).orElseThrow();
+                current.setStatus(OrderStatus.PAYMENT_UNKNOWN);
+                current.setFailureReason(PAYMENT_UNKNOWN_REASON);
+                current.setDateUpdated(LocalDateTime.now());
+                this.checkoutOrderRepository.save(current);
+            }
+            if (windowOver)
+                this.outboxEventRepository.deleteById(eventId);
+            else
+                this.outboxEventRepository.reschedule(eventId, LocalDateTime.now().plus(RECONCILE_INTERVAL));
+        });
+        if (windowOver)
+            log.error("Payment for order {} is still unknown after {}, resolve it with the provider by hand; last failure: {}",
+                    order.getId(), RECONCILE_WINDOW, lastFailure);
+        else
+            log.warn("Payment for order {} is unknown, reconciling in {}: {}", order.getId(), RECONCILE_INTERVAL, lastFailure);
+    }
+
+    private void settle(Long eventId, Long orderId, OrderStatus status, String chargeId, String failureReason) {
+        this.transactionTemplate.executeWithoutResult(transaction -> {
+            CheckoutOrder order = this.checkoutOrderRepository.findById(orderId).orElseThrow();
+            order.setStatus(status);
+            order.setChargeId(chargeId);
+            order.setFailureReason(failureReason);
+            order.setDateUpdated(LocalDateTime.now());
+            this.checkoutOrderRepository.save(order);
+            if (status == OrderStatus.FAILED)
+                this.shoppingCartRepository.reopenCart(order.getShoppingCart().getId());
+            this.outboxEventRepository.deleteById(eventId);
+        });
+    }
+
+    private static ChargeRequest chargeRequest(CheckoutOrder order, OutboxEvent event) {
+        ChargeRequest chargeRequest = new ChargeRequest();
+        chargeRequest.setAmount(order.getAmount());
+        chargeRequest.setCurrency(order.getCurrency());
+        chargeRequest.setDescription(String.format("MovieNight order %d", order.getId()));
+        chargeRequest.setStripeToken(event.getStripeToken());
+        chargeRequest.setStripeEmail(event.getStripeEmail());
+        // the same key on every attempt, so a retry after a lost response cannot charge twice
+        chargeRequest.setIdempotencyKey("checkout-order-" + order.getId());
+        return chargeRequest;
+    }
+
+    static Duration backoff(int attempts) {
+        Duration delay = Duration.ofSeconds(1L << Math.min(attempts, 16));
+        return delay.compareTo(MAX_BACKOFF) > 0 ? MAX_BACKOFF : delay;
+    }
+}
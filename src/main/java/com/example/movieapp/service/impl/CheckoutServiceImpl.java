@@ -0,0 +1,90 @@
+package com.example.movieapp.service.impl;
+
+import com.example.movieapp.model.ChargeRequest;
+import com.example.movieapp.model.CheckoutOrder;
+import com.example.movieapp.model.IdempotencyRecord;
+import com.example.movieapp.model.OutboxEvent;
+import com.example.movieapp.model.ShoppingCart;
+import com.example.movieapp.model.exceptions.CheckoutOrderNotFoundException;
+import com.example.movieapp.model.exceptions.InvalidArgumentsException;
+import com.example.movieapp.model.exceptions.ShoppingCartEmptyException;
+import com.example.movieapp.repository.CheckoutOrderRepository;
+import com.example.movieapp.repository.IdempotencyRecordRepository;
+import com.example.movieapp.repository.OutboxEventRepository;
+import com.example.movieapp.repository.ShoppingCartRepository;
+import com.example.movieapp.service.CheckoutService;
+import com.example.movieapp.service.ShoppingCartService;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Places orders without talking to the payment provider: the cart is finished and the order and its
+ * outbox event are written in one transaction, and {@link CheckoutOutboxWorker} makes the payment.
+ */
+@Service
+public class CheckoutServiceImpl implements CheckoutService {
+
+    private final ShoppingCartService shoppingCartService;
+    private final ShoppingCartRepository shoppingCartRepository;
+    private final CheckoutOrderRepository checkoutOrderRepository;
+    private final OutboxEventRepository outboxEventRepository;
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final CheckoutIdempotencyStore idempotencyStore;
+    private final TransactionTemplate transactionTemplate;
+
+    private static final int MAX_IDEMPOTENCY_KEY_LENGTH = 64;
+
+    public CheckoutServiceImpl(ShoppingCartService shoppingCartService, ShoppingCartRepository shoppingCartRepository,
+                               CheckoutOrderRepository checkoutOrderRepository, OutboxEventRepository outboxEventRepository,
+                               IdempotencyRecordRepository idempotencyRecordRepository, CheckoutIdempotencyStore idempotencyStore,
+                               PlatformTransactionManager transactionManager) {
+        this.shoppingCartService = shoppingCartService;
+        this.shoppingCartRepository = shoppingCartRepository;
+        this.checkoutOrderRepository = checkoutOrderRepository;
+        this.outboxEventRepository = outboxEventRepository;
+        this.idempotencyRecordRepository = idempotencyRecordRepository;
+        this.idempotencyStore = idempotencyStore;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public Long placeOrder(String username, ChargeRequest chargeRequest) {
+        String idempotencyKey = chargeRequest.getIdempotencyKey();
+        if (idempotencyKey == null || idempotencyKey.isBlank())
+            return this.transactionTemplate.execute(status -> this.createOrder(username, chargeRequest, null));
+        if (idempotencyKey.length() > MAX_IDEMPOTENCY_KEY_LENGTH)
+            throw new InvalidArgumentsException();
+
+        // scoped to the user, so a key cannot be used to look up someone else's order
+        String scopedKey = username + ":" + idempotencyKey;
+        return this.idempotencyStore.execute(scopedKey,
+                () -> this.transactionTemplate.execute(status -> this.createOrder(username, chargeRequest, scopedKey)));
+    }
+
+    private Long createOrder(String username, ChargeRequest chargeRequest, String idempotencyKey) {
+        ShoppingCart shoppingCart = this.shoppingCartService.getActiveShoppingCart(username);
+        // priced on the server; the amount posted by the checkout form is not trusted
+        int amount = (int) Math.round(this.shoppingCartService.getPrice(shoppingCart.getId()) * 100);
+        if (amount == 0)
+            throw new ShoppingCartEmptyException(username);
+        // fails if the cart changed after it was priced
+        if (this.shoppingCartRepository.finishCart(shoppingCart.getId(), shoppingCart.getVersion()) == 0)
+            throw new ObjectOptimisticLockingFailureException(ShoppingCart.class, shoppingCart.getId());
+
+        CheckoutOrder order = this.checkoutOrderRepository.save(
+                new CheckoutOrder(shoppingCart.getUser(), shoppingCart, amount, ChargeRequest.Currency.EUR));
+        this.outboxEventRepository.save(
+                new OutboxEvent(order.getId(), chargeRequest.getStripeToken(), chargeRequest.getStripeEmail()));
+        if (idempotencyKey != null)
+            this.idempotencyRecordRepository.save(new IdempotencyRecord(idempotencyKey, order.getId()));
+        return order.getId();
+    }
+
+    @Override
+    public CheckoutOrder getOrder(Long orderId, String username) {
+        return this.checkoutOrderRepository.findByIdAndUserUsername(orderId, username)
+                .orElseThrow(() -> new CheckoutOrderNotFoundException(orderId));
+    }
+}
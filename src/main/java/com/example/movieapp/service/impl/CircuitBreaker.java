@@ -0,0 +1,107 @@
+package com.example.movieapp.service.impl;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.function.LongSupplier;
+
+/**
+ * Count-based circuit breaker. CLOSED lets every call through and records the outcomes of the last
+ * calls; once at least half of the window is filled and the failure rate reaches the threshold it
+ * turns OPEN and rejects calls. After the open duration it turns HALF_OPEN and lets a few probe calls
+ * through: if they all succeed it closes again, the first failing probe opens it again.
+ * <p>
+ * {@link #tryAcquire()} hands out a permit that has to be passed back with the call's outcome, so that
+ * calls started before a state change cannot count as probes or trip the breaker again.
+ */
+class CircuitBreaker {
+
+    enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    static final long REJECTED = -1;
+
+    private final int failureRateThreshold;
+    private final int probeCalls;
+    private final long openNanos;
+    private final LongSupplier nanoClock;
+
+    private final boolean[] window;
+    private int windowIndex;
+    private int recordedCalls;
+    private int failedCalls;
+
+    private State state = State.CLOSED;
+    private long generation;
+    private long openedAt;
+    private int probesStarted;
+    private int probesSucceeded;
+
+    CircuitBreaker(int windowSize, int failureRateThreshold, Duration openDuration, int probeCalls, LongSupplier nanoClock) {
+        this.window = new boolean[windowSize];
+        this.failureRateThreshold = failureRateThreshold;
+        this.openNanos = openDuration.toNanos();
+        this.probeCalls = probeCalls;
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Returns a permit for one call, or {@link #REJECTED} when the call must not be made.
+     */
+    synchronized long tryAcquire() {
+        if (this.state == State.OPEN) {
+            if (this.nanoClock.getAsLong() - this.openedAt < this.openNanos)
+                return REJECTED;
+            this.transitionTo(State.HALF_OPEN);
+        }
+        if (this.state == State.HALF_OPEN) {
+            if (this.probesStarted >= this.probeCalls)
+                return REJECTED;
+            this.probesStarted++;
+        }
+        return this.generation;
+    }
+
+    synchronized void onResult(long permit, boolean success) {
+        if (permit != this.generation)
+            return;
+        if (this.state == State.HALF_OPEN) {
+            if (!success)
+                this.transitionTo(State.OPEN);
+            else if (++this.probesSucceeded >= this.probeCalls)
+                this.transitionTo(State.CLOSED);
+            return;
+        }
+        if (this.window[this.windowIndex] && this.recordedCalls == this.window.length)
+            this.failedCalls--;
+        this.window[this.windowIndex] = !success;
+        this.windowIndex = (this.windowIndex + 1) % this.window.length;
+        this.recordedCalls = Math.min(this.recordedCalls + 1, this.window.length);
+        if (!success)
+            this.failedCalls++;
+        if (this.recordedCalls * 2 >= this.window.length
+                && this.failedCalls * 100 >= this.failureRateThreshold * this.recordedCalls)
+            this.transitionTo(State.OPEN);
+    }
+
+    synchronized State getState() {
+        return this.state;
+    }
+
+    private void transitionTo(State state) {
+        this.state = state;
+        this.generation++;
+        this.probesStarted = 0;
+        this.probesSucceeded = 0;
+        if (state == State.OPEN)
+            this.openedAt = this.nanoClock.getAsLong();
+        if (state != State.HALF_OPEN) {
+            Arrays.fill(this.window, false);
+            this.windowIndex = 0;
+            this.recordedCalls = 0;
+            this.failedCalls = 0;
+        }
+    }
+}
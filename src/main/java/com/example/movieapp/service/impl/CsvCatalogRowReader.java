@@ -0,0 +1,100 @@
+package com.example.movieapp.service.impl;
+
+import com.example.movieapp.model.exceptions.InvalidArgumentsException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * RFC 4180 CSV with a header row naming the columns, in any order:
+ * {@code name,description,price,genre,imageUrl,actors}. Actors are separated by {@code |}. Quoted
+ * fields may contain commas, line breaks and doubled quotes.
+ */
+class CsvCatalogRowReader implements CatalogRowReader {
+
+    private final BufferedReader reader;
+    private final Map<String, Integer> columns = new HashMap<>();
+    private long line;
+
+    CsvCatalogRowReader(InputStream input) throws IOException {
+        this.reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        List<String> header = this.readRecord();
+        if (header == null)
+            throw new InvalidArgumentsException();
+        for (int i = 0; i < header.size(); i++)
+            // a byte order mark written by spreadsheet exports sticks to the first column name
+            this.columns.put(header.get(i).replace("\uFEFF", "").trim().toLowerCase(Locale.ROOT), i);
+        if (!this.columns.containsKey("name"))
+            throw new InvalidArgumentsException();
+    }
+
+    @Override
+    public CatalogImportRow next() throws IOException {
+        List<String> record;
+        do {
+            record = this.readRecord();
+        } while (record != null && record.size() == 1 && record.get(0).isBlank());
+        if (record == null)
+            return null;
+        return new CatalogImportRow(this.line, field(record, "name"), field(record, "description"),
+                field(record, "price"), field(record, "genre"), field(record, "imageurl"),
+                CatalogRowReader.splitActors(field(record, "actors")));
+    }
+
+    private String field(List<String> record, String column) {
+        Integer index = this.columns.get(column);
+        return index == null || index >= record.size() ? null : CatalogRowReader.trimToNull(record.get(index));
+    }
+
+    private List<String> readRecord() throws IOException {
+        int c = this.reader.read();
+        if (c == -1)
+            return null;
+        this.line++;
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        while (c != -1) {
+            if (quoted) {
+                if (c == '"') {
+                    this.reader.mark(1);
+                    if (this.reader.read() == '"') {
+                        field.append('"');
+                    } else {
+                        this.reader.reset();
+                        quoted = false;
+                    }
+                } else {
+                    if (c == '\n')
+                        this.line++;
+                    field.append((char) c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n') {
+                break;
+            } else if (c != '\r') {
+                field.append((char) c);
+            }
+            c = this.reader.read();
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.reader.close();
+    }
+}
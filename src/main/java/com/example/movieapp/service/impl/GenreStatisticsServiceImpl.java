@@ -0,0 +1,183 @@
+package com.example.movieapp.service.impl;
+
+import com.example.movieapp.model.GenreStatistics;
+import com.example.movieapp.model.exceptions.MovieGenreNotFound;
+import com.example.movieapp.repository.MovieGenreRepository;
+import com.example.movieapp.repository.MovieRepository;
+import com.example.movieapp.service.CacheInvalidationService;
+import com.example.movieapp.service.GenreStatisticsService;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Per-genre count and min/avg/max price, seeded from one GROUP BY query and then maintained in memory
+ * as movies are added, changed and removed. Removing the cheapest or most expensive movie of a genre
+ * drops that genre's counter, and the next read reloads it with an aggregate query. Other nodes drop
+ * their counter for a genre whenever this node changes it, so a dropped counter is normal: every read
+ * path loads the genres it is missing.
+ */
+@Service
+public class GenreStatisticsServiceImpl implements GenreStatisticsService {
+
+    static final String REGION = "genreStatistics";
+
+    private final MovieRepository movieRepository;
+    private final MovieGenreRepository movieGenreRepository;
+    private final CacheInvalidationService cacheInvalidationService;
+    private final Map<Long, GenreCounter> counters = new ConcurrentHashMap<>();
+
+    public GenreStatisticsServiceImpl(MovieRepository movieRepository, MovieGenreRepository movieGenreRepository,
+                                      CacheInvalidationService cacheInvalidationService) {
+        this.movieRepository = movieRepository;
+        this.movieGenreRepository = movieGenreRepository;
+        this.cacheInvalidationService = cacheInvalidationService;
+        cacheInvalidationService.onInvalidation(REGION, movieGenreId -> {
+            if (movieGenreId == null)
+                this.counters.clear();
+            else
+                this.counters.remove(movieGenreId);
+        });
+    }
+
+    @Override
+    public GenreStatistics getStatistics(Long movieGenreId) {
+        return this.counters.computeIfAbsent(movieGenreId, this::load).snapshot(movieGenreId);
+    }
+
+    @Override
+    public Map<Long, GenreStatistics> getAllStatistics() {
+        List<Long> missing = this.movieGenreRepository.findAllIds().stream()
+                .filter(movieGenreId -> !this.counters.containsKey(movieGenreId))
+                .collect(Collectors.toList());
+        if (!missing.isEmpty()) {
+            // one aggregate query for all missing genres; those without movies get an empty counter
+            Map<Long, GenreStatistics> loaded = this.movieRepository.findGenreStatisticsByIdIn(missing).stream()
+                    .collect(Collectors.toMap(GenreStatistics::getMovieGenreId, Function.identity()));
+            missing.forEach(movieGenreId -> this.counters.putIfAbsent(movieGenreId, new GenreCounter(
+                    loaded.getOrDefault(movieGenreId, GenreStatistics.empty(movieGenreId)))));
+        }
+        return this.counters.entrySet().stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, entry -> entry.getValue().snapshot(entry.getKey())));
+    }
+
+    @Override
+    public void movieAdded(Long movieGenreId, double price) {
+        if (movieGenreId == null)
+            return;
+        this.cacheInvalidationService.publish(REGION, movieGenreId);
+        this.afterCommit(() -> {
+            if (this.counters.computeIfPresent(movieGenreId, (id, counter) -> counter.add(price) ? counter : null) != null)
+                return;
+            // a missing counter is loaded rather than skipped; after the commit the query sees the added movie
+            this.movieRepository.findGenreStatistics(movieGenreId)
+                    .ifPresent(statistics -> this.counters.putIfAbsent(movieGenreId, new GenreCounter(statistics)));
+        });
+    }
+
+    @Override
+    public void movieRemoved(Long movieGenreId, double price) {
+        if (movieGenreId == null)
+            return;
+        this.cacheInvalidationService.publish(REGION, movieGenreId);
+        this.afterCommit(() -> this.counters.computeIfPresent(movieGenreId,
+                (id, counter) -> counter.remove(price) ? counter : null));
+    }
+
+    @Override
+    public void invalidate(Long movieGenreId) {
+        this.cacheInvalidationService.publish(REGION, movieGenreId);
+        this.afterCommit(() -> this.counters.remove(movieGenreId));
+    }
+
+    /**
+     * Inside a transaction counters change only once it commits: changed earlier, a rollback would leave
+     * them wrong, and a counter dropped early would be reloaded by a concurrent read from the rows the
+     * transaction has not yet changed, keeping the old figures.
+     */
+    private void afterCommit(Runnable change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            change.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                change.run();
+            }
+        });
+    }
+
+    @Override
+    @EventListener(ApplicationReadyEvent.class)
+    public void reload() {
+        this.counters.clear();
+        this.movieRepository.findGenreStatistics()
+                .forEach(statistics -> this.counters.put(statistics.getMovieGenreId(), new GenreCounter(statistics)));
+    }
+
+    private GenreCounter load(Long movieGenreId) {
+        return this.movieRepository.findGenreStatistics(movieGenreId)
+                .map(GenreCounter::new)
+                .orElseGet(() -> {
+                    if (!this.movieGenreRepository.existsById(movieGenreId))
+                        throw new MovieGenreNotFound();
+                    return new GenreCounter(GenreStatistics.empty(movieGenreId));
+                });
+    }
+
+    private static class GenreCounter {
+        private long count;
+        private double sum;
+        private double min;
+        private double max;
+
+        GenreCounter(GenreStatistics statistics) {
+            this.count = statistics.getCount();
+            if (this.count > 0) {
+                this.sum = statistics.getAvgPrice() * this.count;
+                this.min = statistics.getMinPrice();
+                this.max = statistics.getMaxPrice();
+            }
+        }
+
+        synchronized boolean add(double price) {
+            this.min = this.count == 0 ? price : Math.min(this.min, price);
+            this.max = this.count == 0 ? price : Math.max(this.max, price);
+            this.count++;
+            this.sum += price;
+            return true;
+        }
+
+        /**
+         * Returns false when the counter can no longer be maintained (the removed price was an extreme)
+         * and has to be reloaded from the database.
+         */
+        synchronized boolean remove(double price) {
+            if (this.count <= 1) {
+                this.count = 0;
+                this.sum = 0;
+                return true;
+            }
+            if (price <= this.min || price >= this.max)
+                return false;
+            this.count--;
+            this.sum -= price;
+            return true;
+        }
+
+        synchronized GenreStatistics snapshot(Long movieGenreId) {
+            if (this.count == 0)
+                return GenreStatistics.empty(movieGenreId);
+            return new GenreStatistics(movieGenreId, this.count, this.min, this.sum / this.count, this.max);
+        }
+    }
+}
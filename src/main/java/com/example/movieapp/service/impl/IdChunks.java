@@ -0,0 +1,29 @@
+package com.example.movieapp.service.impl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * Splits an id list for {@code IN (...)} statements, so one bulk operation never exceeds the bind
+ * parameter limit of a single statement. Nulls and duplicates are dropped.
+ */
+final class IdChunks {
+
+    static final int DEFAULT_SIZE = 1000;
+
+    private IdChunks() {
+    }
+
+    static List<List<Long>> of(Collection<Long> ids, int size) {
+        List<Long> distinct = new ArrayList<>(ids.stream().filter(Objects::nonNull)
+                .collect(Collectors.toCollection(LinkedHashSet::new)));
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int from = 0; from < distinct.size(); from += size)
+            chunks.add(distinct.subList(from, Math.min(from + size, distinct.size())));
+        return chunks;
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.movieapp.service.impl;
+
+import com.example.movieapp.model.exceptions.InvalidArgumentsException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingJsonFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A JSON array of movie objects with the fields {@code name, description, price, genre, imageUrl,
+ * actors}; {@code actors} is an array of names or a {@code |}-separated string. The array is read
+ * element by element, never as a whole tree.
+ */
+class JsonCatalogRowReader implements CatalogRowReader {
+
+    private static final MappingJsonFactory JSON = new MappingJsonFactory();
+
+    private final JsonParser parser;
+
+    JsonCatalogRowReader(InputStream input) throws IOException {
+        this.parser = JSON.createParser(input);
+        if (this.parser.nextToken() != JsonToken.START_ARRAY)
+            throw new InvalidArgumentsException();
+    }
+
+    @Override
+    public CatalogImportRow next() throws IOException {
+        JsonToken token = this.parser.nextToken();
+        if (token == null || token == JsonToken.END_ARRAY)
+            return null;
+        long line = this.parser.getCurrentLocation().getLineNr();
+        JsonNode movie = this.parser.readValueAsTree();
+        if (movie == null || !movie.isObject())
+            return new CatalogImportRow(line, null, null, null, null, null, new ArrayList<>());
+        return new CatalogImportRow(line, text(movie, "name"), text(movie, "description"), text(movie, "price"),
+                text(movie, "genre"), text(movie, "imageUrl"), actors(movie.get("actors")));
+    }
+
+    private static String text(JsonNode movie, String field) {
+        JsonNode value = movie.get(field);
+        return value == null || value.isNull() ? null : CatalogRowReader.trimToNull(value.asText());
+    }
+
+    private static List<String> actors(JsonNode actors) {
+        if (actors == null || actors.isNull())
+            return new ArrayList<>();
+        if (!actors.isArray())
+            return CatalogRowReader.splitActors(actors.asText());
+        List<String> names = new ArrayList<>();
+        actors.forEach(actor -> names.add(actor.asText()));
+        return CatalogRowReader.trimAll(names);
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.parser.close();
+    }
+}
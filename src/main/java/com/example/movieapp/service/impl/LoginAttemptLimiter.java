@@ -0,0 +1,82 @@
+package com.example.movieapp.service.impl;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Failed login attempts per username and per client address over a sliding window. Checked before the
+ * password is hashed, so a credential-stuffing wave against one account or from one address is turned
+ * away without spending BCrypt work on it. A successful login clears the username's failures.
+ */
+@Component
+public class LoginAttemptLimiter {
+
+    private static final int BUCKETS = 10;
+
+    private final int maxFailuresPerUsername;
+    private final int maxFailuresPerAddress;
+    private final long bucketMillis;
+    private final LongSupplier clock;
+    private final Map<String, SlidingWindowCounter> usernameFailures = new ConcurrentHashMap<>();
+    private final Map<String, SlidingWindowCounter> addressFailures = new ConcurrentHashMap<>();
+
+    public LoginAttemptLimiter(@Value("${app.security.login.max-failures-per-username:10}") int maxFailuresPerUsername,
+                               @Value("${app.security.login.max-failures-per-address:100}") int maxFailuresPerAddress,
+                               @Value("${app.security.login.window-seconds:300}") long windowSeconds) {
+        this(maxFailuresPerUsername, maxFailuresPerAddress, windowSeconds, System::currentTimeMillis);
+    }
+
+    LoginAttemptLimiter(int maxFailuresPerUsername, int maxFailuresPerAddress, long windowSeconds, LongSupplier clock) {
+        this.maxFailuresPerUsername = maxFailuresPerUsername;
+        this.maxFailuresPerAddress = maxFailuresPerAddress;
+        this.bucketMillis = Math.max(1, windowSeconds * 1000 / BUCKETS);
+        this.clock = clock;
+    }
+
+    public boolean isAllowed(String username, String address) {
+        long now = this.clock.getAsLong();
+        return below(this.usernameFailures, username, this.maxFailuresPerUsername, now)
+                && below(this.addressFailures, address, this.maxFailuresPerAddress, now);
+    }
+
+    public void recordFailure(String username, String address) {
+        long now = this.clock.getAsLong();
+        this.counter(this.usernameFailures, username).increment(now);
+        if (address != null)
+            this.counter(this.addressFailures, address).increment(now);
+    }
+
+    public void recordSuccess(String username) {
+        this.usernameFailures.remove(username);
+    }
+
+    /**
+     * Drops counters without failures in the window, so random usernames from a stuffing wave do not pile up.
+     */
+    @Scheduled(fixedDelayString = "${app.security.login.sweep-ms:60000}")
+    public void evictIdle() {
+        long now = this.clock.getAsLong();
+        this.usernameFailures.values().removeIf(counter -> counter.count(now) == 0);
+        this.addressFailures.values().removeIf(counter -> counter.count(now) == 0);
+    }
+
+    int trackedKeys() {
+        return this.usernameFailures.size() + this.addressFailures.size();
+    }
+
+    private SlidingWindowCounter counter(Map<String, SlidingWindowCounter> counters, String key) {
+        return counters.computeIfAbsent(key, k -> new SlidingWindowCounter(BUCKETS, this.bucketMillis));
+    }
+
+    private static boolean below(Map<String, SlidingWindowCounter> counters, String key, int limit, long now) {
+        if (key == null)
+            return true;
+        SlidingWindowCounter counter = counters.get(key);
+        return counter == null || counter.count(now) < limit;
+    }
+}
@@ -1,11 +1,17 @@
 package com.example.movieapp.service.impl;
 
+import com.example.movieapp.config.CacheConfig;
+import com.example.movieapp.config.EvictCatalogCaches;
 import com.example.movieapp.model.MovieGenre;
 import com.example.movieapp.model.exceptions.MovieGenreNotFound;
 import com.example.movieapp.repository.MovieGenreRepository;
+import com.example.movieapp.service.GenreStatisticsService;
 import com.example.movieapp.service.MovieGenreService;
+import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -13,23 +19,30 @@ import java.util.Optional;
 public class MovieGenreServiceImpl implements MovieGenreService {
 
     private final MovieGenreRepository movieGenreRepository;
+    private final GenreStatisticsService genreStatisticsService;
 
-    public MovieGenreServiceImpl(MovieGenreRepository movieGenreRepository) {
+    public MovieGenreServiceImpl(MovieGenreRepository movieGenreRepository, GenreStatisticsService genreStatisticsService) {
         this.movieGenreRepository = movieGenreRepository;
+        this.genreStatisticsService = genreStatisticsService;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<MovieGenre> findAllMovieGenres() {
         return this.movieGenreRepository.findAll();
     }
 
     @Override
+    @Transactional
     public Optional<MovieGenre> addNewMovieGenre(String name) {
         MovieGenre movieGenre= new MovieGenre(name);
         return Optional.of(this.movieGenreRepository.save(movieGenre));
     }
 
     @Override
+    @Transactional
+    @EvictCatalogCaches
+    @CacheEvict(cacheNames = CacheConfig.MOVIES, allEntries = true)
     public Optional<MovieGenre> updateMovieGenre(Long movieGenreId, String name) {
         MovieGenre movieGenre=this.movieGenreRepository.findById(movieGenreId).orElseThrow(MovieGenreNotFound::new);
         movieGenre.setName(name);
@@ -37,13 +50,35 @@ public class MovieGenreServiceImpl implements MovieGenreService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Optional<MovieGenre> getMovieGenre(Long movieGenreId) {
         return this.movieGenreRepository.findById(movieGenreId);
     }
 
     @Override
+    @Transactional
+    @EvictCatalogCaches
+    @CacheEvict(cacheNames = CacheConfig.MOVIES, allEntries = true)
     public boolean deleteMovieGenre(Long movieGenreId) {
+        if (this.movieGenreRepository.findById(movieGenreId).isEmpty())
+            return false;
+        this.movieGenreRepository.detachMovies(List.of(movieGenreId));
         this.movieGenreRepository.deleteById(movieGenreId);
-        return this.movieGenreRepository.findById(movieGenreId).isEmpty();
+        this.genreStatisticsService.invalidate(movieGenreId);
+        return true;
+    }
+
+    @Override
+    @Transactional
+    @EvictCatalogCaches
+    @CacheEvict(cacheNames = CacheConfig.MOVIES, allEntries = true)
+    public int deleteMovieGenres(Collection<Long> movieGenreIds) {
+        int deleted = 0;
+        for (List<Long> chunk : IdChunks.of(movieGenreIds, IdChunks.DEFAULT_SIZE)) {
+            this.movieGenreRepository.detachMovies(chunk);
+            deleted += this.movieGenreRepository.deleteByIdIn(chunk);
+            chunk.forEach(this.genreStatisticsService::invalidate);
+        }
+        return deleted;
     }
 }
@@ -0,0 +1,140 @@
+package com.example.movieapp.service.impl;
+
+import com.example.movieapp.model.Actor;
+import com.example.movieapp.model.Movie;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory inverted index over movie names, descriptions and actor names, ranked with BM25.
+ * Name and actor matches count more than description matches by repeating their terms.
+ * Reads are lock-free; writers are serialized by {@link MovieSearchServiceImpl}.
+ */
+class MovieSearchIndex {
+
+    private static final Pattern SEPARATOR = Pattern.compile("[^\\p{L}\\p{Nd}]+");
+    private static final int NAME_WEIGHT = 3;
+    private static final int ACTOR_WEIGHT = 2;
+    private static final int DESCRIPTION_WEIGHT = 1;
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private final Map<String, Map<Long, Integer>> postings = new ConcurrentHashMap<>();
+    private final Map<Long, Document> documents = new ConcurrentHashMap<>();
+    private final AtomicLong totalLength = new AtomicLong();
+
+    /**
+     * Builds an index for all the given movies, tokenizing and inserting postings in parallel.
+     */
+    static MovieSearchIndex build(Collection<Movie> movies) {
+        MovieSearchIndex index = new MovieSearchIndex();
+        movies.parallelStream()
+                .map(MovieSearchIndex::document)
+                .forEach(index::add);
+        return index;
+    }
+
+    void put(Movie movie) {
+        this.remove(movie.getId());
+        this.add(document(movie));
+    }
+
+    void remove(Long movieId) {
+        Document document = this.documents.remove(movieId);
+        if (document == null)
+            return;
+        document.termFrequencies.keySet().forEach(term -> this.postings.computeIfPresent(term, (t, movies) -> {
+            movies.remove(movieId);
+            return movies.isEmpty() ? null : movies;
+        }));
+        this.totalLength.addAndGet(-document.length);
+    }
+
+    int size() {
+        return this.documents.size();
+    }
+
+    /**
+     * Returns the ids of the best matching movies, best first.
+     */
+    List<Long> search(String query, int limit) {
+        int documentCount = this.documents.size();
+        if (documentCount == 0)
+            return new ArrayList<>();
+        double averageLength = Math.max(1.0, (double) this.totalLength.get() / documentCount);
+
+        Map<Long, Double> scores = new HashMap<>();
+        for (String term : tokenize(query).stream().distinct().collect(Collectors.toList())) {
+            Map<Long, Integer> movies = this.postings.get(term);
+            if (movies == null)
+                continue;
+            double idf = Math.log(1 + (documentCount - movies.size() + 0.5) / (movies.size() + 0.5));
+            movies.forEach((movieId, tf) -> {
+                Document document = this.documents.get(movieId);
+                if (document == null)
+                    return;
+                double norm = K1 * (1 - B + B * document.length / averageLength);
+                scores.merge(movieId, idf * tf * (K1 + 1) / (tf + norm), Double::sum);
+            });
+        }
+        return scores.entrySet().stream()
+                .sorted(Map.Entry.<Long, Double>comparingByValue(Comparator.reverseOrder())
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .limit(limit)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+    }
+
+    private void add(Document document) {
+        this.documents.put(document.movieId, document);
+        document.termFrequencies.forEach((term, tf) ->
+                this.postings.computeIfAbsent(term, t -> new ConcurrentHashMap<>()).put(document.movieId, tf));
+        this.totalLength.addAndGet(document.length);
+    }
+
+    private static Document document(Movie movie) {
+        Map<String, Integer> termFrequencies = new HashMap<>();
+        addTerms(termFrequencies, movie.getName(), NAME_WEIGHT);
+        addTerms(termFrequencies, movie.getDescription(), DESCRIPTION_WEIGHT);
+        if (movie.getActors() != null)
+            for (Actor actor : movie.getActors())
+                addTerms(termFrequencies, actor.getName(), ACTOR_WEIGHT);
+        return new Document(movie.getId(), termFrequencies);
+    }
+
+    private static void addTerms(Map<String, Integer> termFrequencies, String text, int weight) {
+        tokenize(text).forEach(term -> termFrequencies.merge(term, weight, Integer::sum));
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null)
+            return terms;
+        for (String token : SEPARATOR.split(text.toLowerCase(Locale.ROOT)))
+            if (!token.isEmpty())
+                terms.add(token);
+        return terms;
+    }
+
+    private static class Document {
+        private final Long movieId;
+        private final Map<String, Integer> termFrequencies;
+        private final int length;
+
+        Document(Long movieId, Map<String, Integer> termFrequencies) {
+            this.movieId = movieId;
+            this.termFrequencies = termFrequencies;
+            this.length = termFrequencies.values().stream().mapToInt(Integer::intValue).sum();
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.movieapp.service.impl;
+
+import com.example.movieapp.model.Movie;
+import com.example.movieapp.repository.MovieRepository;
+import com.example.movieapp.service.CacheInvalidationService;
+import com.example.movieapp.service.MovieSearchService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * In-memory search index over the catalog. Every change made on this node is published in the
+ * {@value #REGION} region; other nodes reload the named movie from the database, or rebuild their whole
+ * index for a region-wide message or when they may have missed messages.
+ */
+@Slf4j
+@Service
+public class MovieSearchServiceImpl implements MovieSearchService {
+
+    static final String REGION = "movieSearch";
+    private static final int REBUILD_CHUNK_SIZE = 500;
+    // past this many movies one region-wide message is cheaper than a message per movie
+    private static final int MAX_KEYED_MESSAGES = 100;
+
+    private final MovieRepository movieRepository;
+    private final CacheInvalidationService cacheInvalidationService;
+    private volatile MovieSearchIndex index = new MovieSearchIndex();
+
+    public MovieSearchServiceImpl(MovieRepository movieRepository, CacheInvalidationService cacheInvalidationService) {
+        this.movieRepository = movieRepository;
+        this.cacheInvalidationService = cacheInvalidationService;
+        cacheInvalidationService.onInvalidation(REGION, movieId -> {
+            if (movieId == null)
+                this.build();
+            else
+                this.refresh(movieId);
+        });
+    }
+
+    @Override
+    public List<Long> search(String query, int limit) {
+        if (query == null || query.isBlank())
+            return new ArrayList<>();
+        return this.index.search(query, limit);
+    }
+
+    @Override
+    public synchronized void index(Movie movie) {
+        this.index.put(movie);
+        this.publish(List.of(movie.getId()));
+    }
+
+    @Override
+    public synchronized void remove(Long movieId) {
+        this.index.remove(movieId);
+        this.publish(List.of(movieId));
+    }
+
+    @Override
+    public synchronized void remove(Collection<Long> movieIds) {
+        movieIds.forEach(this.index::remove);
+        this.publish(movieIds);
+    }
+
+    @Override
+    public synchronized void reindexMoviesWithActor(Long actorId) {
+        List<Long> ids = this.movieRepository.findIdsByActorId(actorId);
+        if (ids.isEmpty())
+            return;
+        this.movieRepository.findDistinctByIdIn(ids).forEach(this.index::put);
+        this.publish(ids);
+    }
+
+    @Override
+    public synchronized void reindex(Collection<Long> movieIds) {
+        for (List<Long> chunk : IdChunks.of(movieIds, REBUILD_CHUNK_SIZE))
+            this.movieRepository.findDistinctByIdIn(chunk).forEach(this.index::put);
+        this.publish(movieIds);
+    }
+
+    @Override
+    public synchronized void rebuild() {
+        this.build();
+        this.cacheInvalidationService.publish(REGION, null);
+    }
+
+    /**
+     * Loads the catalog in keyset chunks and swaps in a freshly built index; searches keep using
+     * the old index until the new one is complete. Every node builds its own index at startup.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void build() {
+        long start = System.currentTimeMillis();
+        List<Movie> movies = new ArrayList<>();
+        List<Long> ids = this.movieRepository.findCatalogFirstPage(PageRequest.of(0, REBUILD_CHUNK_SIZE));
+        while (!ids.isEmpty()) {
+            movies.addAll(this.movieRepository.findDistinctByIdIn(ids));
+            ids = this.movieRepository.findCatalogPageAfterId(ids.get(ids.size() - 1),
+                    PageRequest.of(0, REBUILD_CHUNK_SIZE));
+        }
+        this.index = MovieSearchIndex.build(movies);
+        log.info("Search index rebuilt with {} movies in {} ms", movies.size(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Applies another node's change to one movie: indexed again if it is still in the database, dropped
+     * if it was deleted.
+     */
+    private synchronized void refresh(Long movieId) {
+        List<Movie> movies = this.movieRepository.findDistinctByIdIn(List.of(movieId));
+        if (movies.isEmpty())
+            this.index.remove(movieId);
+        else
+            movies.forEach(this.index::put);
+    }
+
+    private void publish(Collection<Long> movieIds) {
+        if (movieIds.size() > MAX_KEYED_MESSAGES)
+            this.cacheInvalidationService.publish(REGION, null);
+        else
+            movieIds.forEach(movieId -> this.cacheInvalidationService.publish(REGION, movieId));
+    }
+}
@@ -1,79 +1,251 @@
 package com.example.movieapp.service.impl;
 
+import com.example.movieapp.config.CacheConfig;
+import com.example.movieapp.config.EvictCatalogCaches;
 import com.example.movieapp.model.Actor;
 import com.example.movieapp.model.Movie;
 import com.example.movieapp.model.MovieGenre;
+import com.example.movieapp.model.MoviePage;
+import com.example.movieapp.model.MovieSortKey;
+import com.example.movieapp.model.exceptions.InvalidArgumentsException;
 import com.example.movieapp.model.exceptions.MovieGenreNotFound;
 import com.example.movieapp.model.exceptions.MovieNotFound;
 import com.example.movieapp.repository.ActorRepository;
 import com.example.movieapp.repository.MovieGenreRepository;
 import com.example.movieapp.repository.MovieRepository;
+import com.example.movieapp.service.GenreStatisticsService;
+import com.example.movieapp.service.MovieSearchService;
 import com.example.movieapp.service.MovieService;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class MovieServiceImpl implements MovieService {
 
+
     private final MovieRepository movieRepository;
     private final ActorRepository actorRepository;
     private final MovieGenreRepository movieGenreRepository;
+    private final MovieSearchService movieSearchService;
+    private final GenreStatisticsService genreStatisticsService;
 
-    public MovieServiceImpl(MovieRepository movieRepository, ActorRepository actorRepository, MovieGenreRepository movieGenreRepository) {
+    public MovieServiceImpl(MovieRepository movieRepository, ActorRepository actorRepository, MovieGenreRepository movieGenreRepository,
+                            MovieSearchService movieSearchService, GenreStatisticsService genreStatisticsService) {
         this.movieRepository = movieRepository;
         this.actorRepository = actorRepository;
         this.movieGenreRepository = movieGenreRepository;
+        this.movieSearchService = movieSearchService;
+        this.genreStatisticsService = genreStatisticsService;
     }
 
     @Override
+    @Transactional
+    @EvictCatalogCaches
     public Optional<Movie> addNewMovie(String name, String description, double price, Long movieGenreId, String imageUrl, List<Long> actorsId) {
         List<Actor> actors= this.actorRepository.findAllById(actorsId);
         MovieGenre movieGenre =this.movieGenreRepository.findById(movieGenreId).orElseThrow(MovieGenreNotFound::new);
         Movie movie= new Movie(name,description,price,movieGenre,imageUrl,actors);
-        return Optional.of(this.movieRepository.save(movie));
+        Movie savedMovie = this.movieRepository.save(movie);
+        this.movieSearchService.index(savedMovie);
+        this.genreStatisticsService.movieAdded(movieGenreId, price);
+        return Optional.of(savedMovie);
     }
 
     @Override
+    @Transactional(readOnly = true)
+    @Cacheable(cacheNames = CacheConfig.MOVIES, key = "#id")
     public Movie getMovie(Long id) {
         return this.movieRepository.findById(id).orElseThrow(MovieNotFound::new);
     }
 
     @Override
+    @Transactional
+    @EvictCatalogCaches
+    @CacheEvict(cacheNames = CacheConfig.MOVIES, key = "#id")
     public Optional<Movie> updateMovie(Long id, String name, String description, double price, Long movieGenreId, String imageUrl, List<Long> actorsId) {
         List<Actor> actors= this.actorRepository.findAllById(actorsId);
         MovieGenre movieGenre =this.movieGenreRepository.findById(movieGenreId).orElseThrow(MovieGenreNotFound::new);
         Movie movie=this.getMovie(id);
+        Long oldMovieGenreId = movie.getMovieGenre() == null ? null : movie.getMovieGenre().getId();
+        double oldPrice = movie.getPrice();
         movie.setName(name);
         movie.setDescription(description);
         movie.setPrice(price);
         movie.setMovieGenre(movieGenre);
         movie.setImageUrl(imageUrl);
         movie.setActors(actors);
-        return Optional.of(this.movieRepository.save(movie));
+        Movie savedMovie = this.movieRepository.save(movie);
+        this.movieSearchService.index(savedMovie);
+        this.genreStatisticsService.movieRemoved(oldMovieGenreId, oldPrice);
+        this.genreStatisticsService.movieAdded(movieGenreId, price);
+        return Optional.of(savedMovie);
     }
 
     @Override
+    @Transactional(readOnly = true)
+    @Cacheable(cacheNames = CacheConfig.MOVIE_CATALOG, key = "'all'")
     public List<Movie> getAllMovies() {
         return this.movieRepository.findAll();
     }
 
     @Override
+    @Transactional(readOnly = true)
+    // keyed on the served size, so out-of-range sizes share the entry of the page they get
+    @Cacheable(cacheNames = CacheConfig.MOVIE_PAGES,
+            key = "{#sortKey, #afterId, #afterValue, T(com.example.movieapp.model.MoviePage).clampSize(#size)}")
+    public MoviePage getMoviePage(MovieSortKey sortKey, Long afterId, String afterValue, int size) {
+        int pageSize = MoviePage.clampSize(size);
+        // one extra row tells us whether there is a next page without a COUNT query
+        Pageable limit = PageRequest.of(0, pageSize + 1);
+        List<Long> ids = this.findCatalogPageIds(sortKey, afterId, afterValue, limit);
+        boolean hasNext = ids.size() > pageSize;
+        if (hasNext)
+            ids = ids.subList(0, pageSize);
+        return new MoviePage(this.loadCatalogCards(ids), sortKey, pageSize, hasNext);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Movie> searchMovies(String query, int limit) {
+        return this.loadCatalogCards(this.movieSearchService.search(query, MoviePage.clampSize(limit)));
+    }
+
+    private List<Movie> loadCatalogCards(List<Long> ids) {
+        if (ids.isEmpty())
+            return new ArrayList<>();
+        Map<Long, Movie> moviesById = this.movieRepository.findDistinctByIdIn(ids).stream()
+                .collect(Collectors.toMap(Movie::getId, Function.identity(), (a, b) -> a));
+        return ids.stream()
+                .map(moviesById::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    private List<Long> findCatalogPageIds(MovieSortKey sortKey, Long afterId, String afterValue, Pageable limit) {
+        if (afterId == null)
+            switch (sortKey) {
+                case NAME:
+                    return this.movieRepository.findCatalogFirstPageByName(limit);
+                case PRICE:
+                    return this.movieRepository.findCatalogFirstPageByPrice(limit);
+                default:
+                    return this.movieRepository.findCatalogFirstPage(limit);
+            }
+        switch (sortKey) {
+            case NAME:
+                if (afterValue == null)
+                    throw new InvalidArgumentsException();
+                return this.movieRepository.findCatalogPageAfterName(afterValue, afterId, limit);
+            case PRICE:
+                return this.movieRepository.findCatalogPageAfterPrice(parsePrice(afterValue), afterId, limit);
+            default:
+                return this.movieRepository.findCatalogPageAfterId(afterId, limit);
+        }
+    }
+
+    private static double parsePrice(String afterValue) {
+        try {
+            return Double.parseDouble(afterValue);
+        } catch (NullPointerException | NumberFormatException exception) {
+            throw new InvalidArgumentsException();
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    @Cacheable(cacheNames = CacheConfig.GENRE_MOVIES, key = "#movieGenreId")
     public List<Movie> findAllMoviesFromMovieGenre(Long movieGenreId) {
         MovieGenre movieGenre =this.movieGenreRepository.findById(movieGenreId).orElseThrow(MovieGenreNotFound::new);
         return this.movieRepository.findAllByMovieGenre(movieGenre);
     }
 
     @Override
+    @Transactional
+    @EvictCatalogCaches
+    @CacheEvict(cacheNames = CacheConfig.MOVIES, key = "#movieId")
     public boolean deleteMovie(Long movieId) {
         Movie movie = this.getMovie(movieId);
+        this.movieRepository.removeFromShoppingCarts(List.of(movieId));
         this.movieRepository.delete(movie);
-        return this.movieRepository.findById(movieId).isEmpty();
+        this.movieSearchService.remove(movieId);
+        if (movie.getMovieGenre() != null)
+            this.genreStatisticsService.movieRemoved(movie.getMovieGenre().getId(), movie.getPrice());
+        // the delete either ran or threw; reading the row back would only cost a round trip
+        return true;
+    }
+
+    /**
+     * Removes the movies in chunks of {@link IdChunks#DEFAULT_SIZE} ids, four statements per chunk
+     * and no entity loaded. The statistics of every genre that lost a movie are reloaded rather than
+     * adjusted, since the deleted prices are never read.
+     */
+    @Override
+    @Transactional
+    @EvictCatalogCaches
+    @CacheEvict(cacheNames = CacheConfig.MOVIES, allEntries = true)
+    public int deleteMovies(Collection<Long> movieIds) {
+        int deleted = 0;
+        Set<Long> genreIds = new HashSet<>();
+        for (List<Long> chunk : IdChunks.of(movieIds, IdChunks.DEFAULT_SIZE)) {
+            genreIds.addAll(this.movieRepository.findGenreIdsByIdIn(chunk));
+            this.movieRepository.removeFromShoppingCarts(chunk);
+            this.movieRepository.deleteActorLinks(chunk);
+            deleted += this.movieRepository.deleteByIdIn(chunk);
+            this.movieSearchService.remove(chunk);
+        }
+        genreIds.forEach(this.genreStatisticsService::invalidate);
+        return deleted;
+    }
+
+    @Override
+    @Transactional
+    @EvictCatalogCaches
+    @CacheEvict(cacheNames = CacheConfig.MOVIES, allEntries = true)
+    public int changePricesOfGenre(Long movieGenreId, double percent) {
+        double factor = 1 + percent / 100;
+        if (movieGenreId == null || !Double.isFinite(factor) || factor <= 0)
+            throw new InvalidArgumentsException();
+        this.movieRepository.bumpShoppingCartsWithGenre(movieGenreId);
+        int updated = this.movieRepository.scalePricesOfGenre(movieGenreId, factor);
+        this.genreStatisticsService.invalidate(movieGenreId);
+        return updated;
+    }
+
+    @Override
+    @Transactional
+    @EvictCatalogCaches
+    @CacheEvict(cacheNames = CacheConfig.MOVIES, allEntries = true)
+    public int setPrices(Collection<Long> movieIds, double price) {
+        if (!Double.isFinite(price) || price < 0)
+            throw new InvalidArgumentsException();
+        int updated = 0;
+        Set<Long> genreIds = new HashSet<>();
+        for (List<Long> chunk : IdChunks.of(movieIds, IdChunks.DEFAULT_SIZE)) {
+            genreIds.addAll(this.movieRepository.findGenreIdsByIdIn(chunk));
+            this.movieRepository.bumpShoppingCartsWithMovies(chunk);
+            updated += this.movieRepository.setPrices(chunk, price);
+        }
+        genreIds.forEach(this.genreStatisticsService::invalidate);
+        return updated;
     }
 
     @Override
     public int getNumberOfMoviesFromGenre(Long movieGenreId) {
-        return this.findAllMoviesFromMovieGenre(movieGenreId).size();
+        return (int) this.genreStatisticsService.getStatistics(movieGenreId).getCount();
     }
 }
@@ -0,0 +1,163 @@
+package com.example.movieapp.service.impl;
+
+import com.example.movieapp.model.ChargeRequest;
+import com.example.movieapp.model.PaymentResult;
+import com.example.movieapp.model.exceptions.PaymentFailedException;
+import com.example.movieapp.service.PaymentGateway;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Guards the payment provider: at most app.payment.max-concurrent-calls calls at a time (further calls
+ * are rejected straight away), a deadline per call, and a {@link CircuitBreaker} that stops calling a
+ * provider that keeps failing. Only provider failures count against the breaker; a declined card is a
+ * healthy answer. Every rejection and failure surfaces as a retryable {@link PaymentFailedException},
+ * which the checkout worker reschedules.
+ * <p>
+ * Metrics: payment.gateway.calls (timer, tagged by outcome), payment.gateway.rejections (tagged by
+ * reason) and payment.gateway.circuit.state (0 closed, 1 open, 2 half-open).
+ */
+@Slf4j
+@Service
+@Primary
+public class ResilientPaymentGateway implements PaymentGateway {
+
+    private final PaymentGateway delegate;
+    private final Semaphore bulkhead;
+    private final Duration callTimeout;
+    private final CircuitBreaker circuitBreaker;
+    private final ExecutorService callExecutor;
+    private final MeterRegistry meterRegistry;
+    private final Counter bulkheadRejections;
+    private final Counter circuitRejections;
+
+    public ResilientPaymentGateway(@Qualifier(PaymentGateway.PROVIDER) PaymentGateway delegate,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${app.payment.max-concurrent-calls:8}") int maxConcurrentCalls,
+                                   @Value("${app.payment.call-timeout-ms:10000}") long callTimeoutMillis,
+                                   @Value("${app.payment.circuit.sliding-window:20}") int slidingWindow,
+                                   @Value("${app.payment.circuit.failure-rate-threshold:50}") int failureRateThreshold,
+                                   @Value("${app.payment.circuit.open-ms:30000}") long openMillis,
+                                   @Value("${app.payment.circuit.half-open-calls:3}") int halfOpenCalls) {
+        this.delegate = delegate;
+        this.meterRegistry = meterRegistry;
+        this.bulkhead = new Semaphore(maxConcurrentCalls);
+        this.callTimeout = Duration.ofMillis(callTimeoutMillis);
+        this.circuitBreaker = new CircuitBreaker(slidingWindow, failureRateThreshold, Duration.ofMillis(openMillis),
+                halfOpenCalls, System::nanoTime);
+        this.callExecutor = Executors.newFixedThreadPool(maxConcurrentCalls, new CustomizableThreadFactory("payment-call-"));
+        this.bulkheadRejections = Counter.builder("payment.gateway.rejections").tag("reason", "bulkhead").register(meterRegistry);
+        this.circuitRejections = Counter.builder("payment.gateway.rejections").tag("reason", "circuit_open").register(meterRegistry);
+        Gauge.builder("payment.gateway.circuit.state", this.circuitBreaker, breaker -> breaker.getState().ordinal())
+                .register(meterRegistry);
+    }
+
+    @Override
+    public PaymentResult charge(ChargeRequest chargeRequest) {
+        if (!this.bulkhead.tryAcquire()) {
+            this.bulkheadRejections.increment();
+            throw new PaymentFailedException("Too many payments in progress", true);
+        }
+        long permit = this.circuitBreaker.tryAcquire();
+        if (permit == CircuitBreaker.REJECTED) {
+            this.bulkhead.release();
+            this.circuitRejections.increment();
+            throw new PaymentFailedException("Payment provider unavailable", true);
+        }
+        return this.call(chargeRequest, permit);
+    }
+
+    /**
+     * The bulkhead permit belongs to the provider call, not to the caller: a timed-out caller returns
+     * while a blocking HTTP call may go on (cancelling does not stop it), so the permit is released
+     * when the call itself ends, or here if the call never started.
+     */
+    private PaymentResult call(ChargeRequest chargeRequest, long permit) {
+        Timer.Sample sample = Timer.start(this.meterRegistry);
+        String outcome = "failure";
+        AtomicBoolean started = new AtomicBoolean();
+        Future<PaymentResult> call;
+        try {
+            call = this.callExecutor.submit(() -> {
+                if (!started.compareAndSet(false, true))
+                    return null;
+                try {
+                    return this.delegate.charge(chargeRequest);
+                } finally {
+                    this.bulkhead.release();
+                }
+            });
+        } catch (RejectedExecutionException exception) {
+            this.bulkhead.release();
+            this.circuitBreaker.onResult(permit, true);
+            throw new PaymentFailedException("Payment gateway shutting down", true);
+        }
+        try {
+            PaymentResult result = call.get(this.callTimeout.toMillis(), TimeUnit.MILLISECONDS);
+            outcome = "success";
+            return result;
+        } catch (TimeoutException exception) {
+            cancel(call, started);
+            outcome = "timeout";
+            throw new PaymentFailedException("Payment provider did not answer in time", true);
+        } catch (InterruptedException exception) {
+            cancel(call, started);
+            outcome = "interrupted";
+            Thread.currentThread().interrupt();
+            throw new PaymentFailedException("Interrupted", true);
+        } catch (ExecutionException exception) {
+            Throwable cause = exception.getCause();
+            if (cause instanceof PaymentFailedException) {
+                if (!((PaymentFailedException) cause).isRetryable())
+                    outcome = "declined";
+                throw (PaymentFailedException) cause;
+            }
+            log.warn("Payment provider call failed", cause);
+            throw new PaymentFailedException(cause.getMessage(), true);
+        } finally {
+            // only the provider misbehaving counts against it
+            this.circuitBreaker.onResult(permit, !outcome.equals("failure") && !outcome.equals("timeout"));
+            sample.stop(this.meterRegistry.timer("payment.gateway.calls", "outcome", outcome));
+        }
+    }
+
+    private void cancel(Future<PaymentResult> call, AtomicBoolean started) {
+        call.cancel(true);
+        // still queued: it will never run, so its permit is released here
+        if (started.compareAndSet(false, true))
+            this.bulkhead.release();
+    }
+
+    int getAvailablePermits() {
+        return this.bulkhead.availablePermits();
+    }
+
+    CircuitBreaker.State getCircuitState() {
+        return this.circuitBreaker.getState();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        this.callExecutor.shutdownNow();
+    }
+}
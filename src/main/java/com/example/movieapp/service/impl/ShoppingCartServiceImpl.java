@@ -9,9 +9,17 @@ import com.example.movieapp.repository.MovieRepository;
 import com.example.movieapp.repository.ShoppingCartRepository;
 import com.example.movieapp.repository.UserRepository;
 import com.example.movieapp.service.ShoppingCartService;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -20,42 +28,56 @@ public class ShoppingCartServiceImpl implements ShoppingCartService {
     private final UserRepository userRepository;
     private final MovieRepository movieRepository;
     private final ShoppingCartRepository shoppingCartRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final StripedLocks userLocks = new StripedLocks(USER_LOCK_STRIPES);
 
-    public ShoppingCartServiceImpl(UserRepository userRepository, MovieRepository movieRepository, ShoppingCartRepository shoppingCartRepository) {
+    static final int MAX_MUTATION_ATTEMPTS = 3;
+    private static final int USER_LOCK_STRIPES = 64;
+
+    public ShoppingCartServiceImpl(UserRepository userRepository, MovieRepository movieRepository, ShoppingCartRepository shoppingCartRepository,
+                                   PlatformTransactionManager transactionManager) {
         this.userRepository = userRepository;
         this.movieRepository = movieRepository;
         this.shoppingCartRepository = shoppingCartRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<Movie> listAllMoviesInShoppingCart(Long cartId) {
-        if(!this.shoppingCartRepository.findById(cartId).isPresent())
-            throw new ShoppingCartNotFoundException(cartId);
-        List<Movie> movies=this.shoppingCartRepository.findById(cartId).get().getMovies();
-       movies.forEach(Movie::getPrice);
-        return this.shoppingCartRepository.findById(cartId).get().getMovies();
+        return this.shoppingCartRepository.findById(cartId)
+                .orElseThrow(() -> new ShoppingCartNotFoundException(cartId))
+                .getMovies()
+                .stream()
+                .sorted(Comparator.comparing(Movie::getId, Comparator.nullsLast(Comparator.naturalOrder())))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<CartMovieView> listCartMovieViews(Long cartId) {
+        return this.shoppingCartRepository.findCartMovieViews(cartId);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public double getPrice(Long cartId) {
-        if(!this.shoppingCartRepository.findById(cartId).isPresent())
-            throw new ShoppingCartNotFoundException(cartId);
-        List<Movie> movies=this.shoppingCartRepository.findById(cartId).get().getMovies();
-          List<Double> pricesList= movies.stream().map(Movie::getPrice).collect(Collectors.toList());
-        double sum = 0.0;
-        for (int i = 0; i < pricesList.size(); i++)
-            sum += pricesList.get(i);
-        return sum;
+        return this.shoppingCartRepository.findTotalPrice(cartId)
+                .orElseThrow(() -> new ShoppingCartNotFoundException(cartId));
     }
     @Override
+    @Transactional
     public void deleteCart(String username){
-        ShoppingCart shoppingCart=this.getActiveShoppingCart(username);
+        User user = this.userRepository.findByUsername(username)
+                .orElseThrow(() -> new UserNotFoundException(username));
+        ShoppingCart shoppingCart = this.shoppingCartRepository
+                .findByUserAndStatus(user, ShoppingCartStatus.CREATED)
+                .orElseThrow(() -> new ShoppingCartNotFoundException(username));
         this.shoppingCartRepository.delete(shoppingCart);
     }
 
-    
-
     @Override
+    @Transactional
     public ShoppingCart getActiveShoppingCart(String username) {
 
         User user = this.userRepository.findByUsername(username)
@@ -64,33 +86,69 @@ public class ShoppingCartServiceImpl implements ShoppingCartService {
         return this.shoppingCartRepository
                 .findByUserAndStatus(user, ShoppingCartStatus.CREATED)
                 .orElseGet(() -> {
-                    ShoppingCart cart = new ShoppingCart(user);
-                    return this.shoppingCartRepository.save(cart);
+                    // idempotent: a concurrent request may have created the cart in the meantime
+                    this.shoppingCartRepository.insertActiveCartIfAbsent(username);
+                    return this.shoppingCartRepository.findByUserAndStatus(user, ShoppingCartStatus.CREATED)
+                            .orElseThrow(() -> new ShoppingCartNotFoundException(username));
                 });
     }
 
     @Override
     public ShoppingCart addMovieToShoppingCart(String username, Long movieId) {
 
-        ShoppingCart shoppingCart = this.getActiveShoppingCart(username);
-        Movie movie = this.movieRepository.findById(movieId).orElseThrow(MovieNotFound::new);
-
-        if(shoppingCart.getMovies()
-                .stream().filter(i -> i.getId().equals(movieId))
-                .collect(Collectors.toList()).size() > 0)
-            throw new MovieAlreadyInShoppingCartException(movieId, username);
-        shoppingCart.getMovies().add(movie);
-        return this.shoppingCartRepository.save(shoppingCart);
+        return this.mutateActiveCart(username, shoppingCart -> {
+            int added;
+            try {
+                added = this.shoppingCartRepository.addMovie(shoppingCart.getId(), movieId);
+            } catch (DataIntegrityViolationException exception) {
+                // the only foreign key left to violate is the movie's
+                throw new MovieNotFound();
+            }
+            if (added == 0)
+                throw new MovieAlreadyInShoppingCartException(movieId, username);
+            return shoppingCart;
+        });
 
     }
 
     @Override
     public ShoppingCart deleteMovieFromShoppingCart(String username, Long movieId) {
 
-        ShoppingCart shoppingCart = this.getActiveShoppingCart(username);
-        Movie movie = this.movieRepository.findById(movieId).orElseThrow(MovieNotFound::new);
-        shoppingCart.getMovies().remove(movie);
-        return this.shoppingCartRepository.save(shoppingCart);
+        return this.mutateActiveCart(username, shoppingCart -> {
+            int removed = this.shoppingCartRepository.removeMovie(shoppingCart.getId(), movieId);
+            if (removed == 0 && !this.movieRepository.existsById(movieId))
+                throw new MovieNotFound();
+            return shoppingCart;
+        });
+
+    }
 
+    /**
+     * Applies a change to the user's active cart together with a version check on the cart row, in one
+     * transaction. Requests of the same user are serialized in-process by a striped lock; a conflict with
+     * another instance (or a checkout in between) is retried on a freshly read cart a bounded number of times.
+     * The transaction is opened inside the lock rather than with {@code @Transactional} on the caller, so it
+     * has committed before the next request of the same user gets the lock.
+     */
+    private ShoppingCart mutateActiveCart(String username, Function<ShoppingCart, ShoppingCart> mutation) {
+        Lock lock = this.userLocks.get(username);
+        lock.lock();
+        try {
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    return this.transactionTemplate.execute(status -> {
+                        ShoppingCart shoppingCart = this.getActiveShoppingCart(username);
+                        if (this.shoppingCartRepository.bumpVersion(shoppingCart.getId(), shoppingCart.getVersion()) == 0)
+                            throw new ObjectOptimisticLockingFailureException(ShoppingCart.class, shoppingCart.getId());
+                        return mutation.apply(shoppingCart);
+                    });
+                } catch (ObjectOptimisticLockingFailureException exception) {
+                    if (attempt >= MAX_MUTATION_ATTEMPTS)
+                        throw exception;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
     }
 }
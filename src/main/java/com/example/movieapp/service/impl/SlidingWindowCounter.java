@@ -0,0 +1,46 @@
+package com.example.movieapp.service.impl;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts events over a sliding window split into buckets, without locks. Each bucket packs the number
+ * of the time slice it counts for with the count itself into one long, so moving a bucket on to a new
+ * slice and counting into it are a single compare-and-set.
+ */
+class SlidingWindowCounter {
+
+    private static final int COUNT_BITS = 20;
+    private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+
+    private final AtomicLongArray buckets;
+    private final long bucketMillis;
+
+    SlidingWindowCounter(int bucketCount, long bucketMillis) {
+        this.buckets = new AtomicLongArray(bucketCount);
+        this.bucketMillis = bucketMillis;
+    }
+
+    void increment(long nowMillis) {
+        long slice = nowMillis / this.bucketMillis;
+        int index = (int) (slice % this.buckets.length());
+        while (true) {
+            long current = this.buckets.get(index);
+            long next = (current >>> COUNT_BITS) == slice
+                    ? current + ((current & COUNT_MASK) < COUNT_MASK ? 1 : 0)
+                    : (slice << COUNT_BITS) | 1;
+            if (this.buckets.compareAndSet(index, current, next))
+                return;
+        }
+    }
+
+    long count(long nowMillis) {
+        long slice = nowMillis / this.bucketMillis;
+        long total = 0;
+        for (int i = 0; i < this.buckets.length(); i++) {
+            long bucket = this.buckets.get(i);
+            if (slice - (bucket >>> COUNT_BITS) < this.buckets.length())
+                total += bucket & COUNT_MASK;
+        }
+        return total;
+    }
+}
@@ -1,13 +1,20 @@
 package com.example.movieapp.service.impl;
 
 import com.example.movieapp.model.ChargeRequest;
+import com.example.movieapp.model.PaymentResult;
+import com.example.movieapp.model.exceptions.PaymentFailedException;
+import com.example.movieapp.service.PaymentGateway;
 import com.stripe.Stripe;
 import com.stripe.exception.APIConnectionException;
 import com.stripe.exception.APIException;
 import com.stripe.exception.CardException;
 import com.stripe.exception.InvalidRequestException;
+import com.stripe.exception.StripeException;
 import com.stripe.model.Charge;
+import com.stripe.net.RequestOptions;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.security.core.AuthenticationException;
 import org.springframework.stereotype.Service;
 
@@ -16,7 +23,9 @@ import java.util.HashMap;
 import java.util.Map;
 
 @Service
-public class StripeService {
+@Qualifier(PaymentGateway.PROVIDER)
+@ConditionalOnProperty(name = "app.payment.gateway", havingValue = "stripe", matchIfMissing = true)
+public class StripeService implements PaymentGateway {
 
     @Value("STRIPE_SECRET_KEY")
     private String secretKey;
@@ -26,7 +35,19 @@ public class StripeService {
         Stripe.apiKey = secretKey;
     }
 
-    public Charge charge(ChargeRequest chargeRequest)
+    @Override
+    public PaymentResult charge(ChargeRequest chargeRequest) {
+        try {
+            Charge charge = this.createCharge(chargeRequest);
+            return new PaymentResult(charge.getId(), charge.getStatus());
+        } catch (APIConnectionException | APIException exception) {
+            throw new PaymentFailedException(exception.getMessage(), true);
+        } catch (StripeException exception) {
+            throw new PaymentFailedException(exception.getMessage(), false);
+        }
+    }
+
+    public Charge createCharge(ChargeRequest chargeRequest)
             throws AuthenticationException, InvalidRequestException,
             APIConnectionException, CardException, APIException, com.stripe.exception.AuthenticationException {
         Map<String, Object> chargeParams = new HashMap<>();
@@ -34,6 +55,8 @@ public class StripeService {
         chargeParams.put("currency", chargeRequest.getCurrency());
         chargeParams.put("description", chargeRequest.getDescription());
         chargeParams.put("source", chargeRequest.getStripeToken());
-        return Charge.create(chargeParams);
+        if (chargeRequest.getIdempotencyKey() == null)
+            return Charge.create(chargeParams);
+        return Charge.create(chargeParams, RequestOptions.builder().setIdempotencyKey(chargeRequest.getIdempotencyKey()).build());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,26 @@
+package com.example.movieapp.service.impl;
+
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A fixed set of locks picked by key hash. Requests for the same key always share a lock, so they run
+ * one after another; different keys mostly land on different stripes and do not wait for each other.
+ * Only serializes within this JVM.
+ */
+class StripedLocks {
+
+    private final Lock[] locks;
+
+    StripedLocks(int stripes) {
+        this.locks = new Lock[stripes];
+        for (int i = 0; i < stripes; i++)
+            this.locks[i] = new ReentrantLock();
+    }
+
+    Lock get(Object key) {
+        int hash = key.hashCode();
+        hash ^= hash >>> 16;
+        return this.locks[Math.floorMod(hash, this.locks.length)];
+    }
+}
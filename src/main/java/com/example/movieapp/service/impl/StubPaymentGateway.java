@@ -0,0 +1,47 @@
+package com.example.movieapp.service.impl;
+
+import com.example.movieapp.model.ChargeRequest;
+import com.example.movieapp.model.PaymentResult;
+import com.example.movieapp.model.exceptions.PaymentFailedException;
+import com.example.movieapp.service.PaymentGateway;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.UUID;
+
+/**
+ * Local stand-in for Stripe (app.payment.gateway=stub). Every charge waits for the configured latency;
+ * the tokens {@value #DECLINED_TOKEN} and {@value #UNAVAILABLE_TOKEN} simulate a refused card and an
+ * unreachable provider.
+ */
+@Service
+@Qualifier(PaymentGateway.PROVIDER)
+@ConditionalOnProperty(name = "app.payment.gateway", havingValue = "stub")
+public class StubPaymentGateway implements PaymentGateway {
+
+    static final String DECLINED_TOKEN = "tok_chargeDeclined";
+    static final String UNAVAILABLE_TOKEN = "tok_unavailable";
+
+    private final long latencyMillis;
+
+    public StubPaymentGateway(@Value("${app.payment.stub.latency-ms:1000}") long latencyMillis) {
+        this.latencyMillis = latencyMillis;
+    }
+
+    @Override
+    public PaymentResult charge(ChargeRequest chargeRequest) {
+        try {
+            Thread.sleep(this.latencyMillis);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new PaymentFailedException("Interrupted", true);
+        }
+        if (DECLINED_TOKEN.equals(chargeRequest.getStripeToken()))
+            throw new PaymentFailedException("Your card was declined.", false);
+        if (UNAVAILABLE_TOKEN.equals(chargeRequest.getStripeToken()))
+            throw new PaymentFailedException("Payment provider unavailable", true);
+        return new PaymentResult("ch_stub_" + UUID.randomUUID(), "succeeded");
+    }
+}
@@ -3,55 +3,77 @@ package com.example.movieapp.service.impl;
 import com.example.movieapp.model.Provider;
 import com.example.movieapp.model.Role;
 import com.example.movieapp.model.User;
+import com.example.movieapp.model.UserPrincipal;
 import com.example.movieapp.model.exceptions.InvalidUsernameOrPasswordException;
 import com.example.movieapp.model.exceptions.PasswordsDoNotMatchException;
 import com.example.movieapp.model.exceptions.UsernameAlreadyExistsException;
 import com.example.movieapp.repository.UserRepository;
 import com.example.movieapp.service.UserService;
+import com.example.movieapp.service.UsernameAvailabilityService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 @Service
 public class UserServiceImpl implements UserService {
 
+      private static final int PROVISIONED_OAUTH_USERS_CACHE_SIZE = 10_000;
+
       private final UserRepository userRepository;
       private final PasswordEncoder passwordEncoder;
+      private final UsernameAvailabilityService usernameAvailabilityService;
+      // usernames known to exist already, so a returning OAuth user's sign-in needs no query at all
+      private final Cache<String, Boolean> provisionedOAuthUsers = Caffeine.newBuilder()
+              .maximumSize(PROVISIONED_OAUTH_USERS_CACHE_SIZE)
+              .build();
 
-    public UserServiceImpl(UserRepository userRepository, PasswordEncoder passwordEncoder) {
+    public UserServiceImpl(UserRepository userRepository, PasswordEncoder passwordEncoder,
+                           UsernameAvailabilityService usernameAvailabilityService) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
+        this.usernameAvailabilityService = usernameAvailabilityService;
     }
 
+    // no transaction: the insert is a single statement, and hashing the password must not hold a connection
     @Override
     public User register(String username, String email, String password,String repeatPassword, Role role) {
         if (username==null || username.isEmpty()  || password==null || password.isEmpty())
             throw new InvalidUsernameOrPasswordException();
         if (!password.equals(repeatPassword))
             throw new PasswordsDoNotMatchException();
-        if(this.userRepository.findByUsername(username).isPresent())
-            throw new UsernameAlreadyExistsException(username);
         User user = new User(username,email,passwordEncoder.encode(password),role);
-        return userRepository.save(user);
+        // one statement; the primary key decides between concurrent registrations of the same name
+        if (this.userRepository.insertIfAbsent(username, email, user.getPassword(), role == null ? null : role.name()) == 0)
+            throw new UsernameAlreadyExistsException(username);
+        this.usernameAvailabilityService.registered(username);
+        return user;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public UserDetails loadUserByUsername(String s) throws UsernameNotFoundException {
-        return userRepository.findByUsername(s).orElseThrow(()->new UsernameNotFoundException(s));
+        return userRepository.findByUsername(s).map(UserPrincipal::from).orElseThrow(()->new UsernameNotFoundException(s));
     }
 
     @Override
-    public void processOAuthPostLogin(String username, String email) {
-        User existUser = userRepository.getUserByUsername(username);
-
-        if (existUser == null) {
-            User newUser = new User();
-            newUser.setUsername(username);
-            newUser.setEmail(email);
-            newUser.setRole(Role.ROLE_USER);
-            userRepository.save(newUser);
-        }
+    @Transactional
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        this.userRepository.updatePassword(user.getUsername(), newPassword);
+        return this.loadUserByUsername(user.getUsername());
+    }
 
+    // no transaction, so a cache hit never takes a connection
+    @Override
+    public void processOAuthPostLogin(String username, String email) {
+        if (this.provisionedOAuthUsers.getIfPresent(username) != null)
+            return;
+        // one atomic statement, so two devices signing in for the first time at once create one user
+        if (this.userRepository.insertIfAbsent(username, email, null, Role.ROLE_USER.name()) == 1)
+            this.usernameAvailabilityService.registered(username);
+        this.provisionedOAuthUsers.put(username, Boolean.TRUE);
     }
 }
@@ -0,0 +1,127 @@
+package com.example.movieapp.service.impl;
+
+import com.example.movieapp.repository.UserRepository;
+import com.example.movieapp.service.CacheInvalidationService;
+import com.example.movieapp.service.UsernameAvailabilityService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Answers "is this username taken" from a Bloom filter of all usernames. A miss is definite and never
+ * reaches the database; only a possible hit is confirmed with a primary key lookup. The filter is
+ * loaded at startup, sized at twice the current number of users, and rebuilt bigger once it fills up.
+ * <p>
+ * Registrations are published in the {@value #REGION} region so every node adds the name to its own
+ * filter, and a node that may have missed some reloads. Names registered while a reload scans the
+ * table are collected and added to the new filter before it replaces the old one.
+ */
+@Slf4j
+@Service
+public class UsernameAvailabilityServiceImpl implements UsernameAvailabilityService {
+
+    static final String REGION = "usernames";
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+    private static final int MIN_CAPACITY = 10_000;
+    private static final int CHUNK_SIZE = 1000;
+
+    private final UserRepository userRepository;
+    private final CacheInvalidationService cacheInvalidationService;
+    // registrations share the read lock; a reload takes the write lock only to swap in its filter
+    private final ReadWriteLock swapLock = new ReentrantReadWriteLock();
+    // null until loaded; every username counts as a possible hit until then
+    private volatile BloomFilter usernames;
+    // names registered while a reload is scanning, null otherwise
+    private Set<String> registeredDuringReload;
+
+    public UsernameAvailabilityServiceImpl(UserRepository userRepository, CacheInvalidationService cacheInvalidationService) {
+        this.userRepository = userRepository;
+        this.cacheInvalidationService = cacheInvalidationService;
+        cacheInvalidationService.onNameInvalidation(REGION, username -> {
+            if (username == null)
+                this.reload();
+            else
+                this.add(username);
+        });
+    }
+
+    @Override
+    public boolean isAvailable(String username) {
+        BloomFilter filter = this.usernames;
+        if (filter != null && !filter.mightContain(username))
+            return true;
+        return !this.userRepository.existsById(username);
+    }
+
+    @Override
+    public void registered(String username) {
+        this.add(username);
+        this.cacheInvalidationService.publishName(REGION, username);
+    }
+
+    private void add(String username) {
+        boolean full;
+        this.swapLock.readLock().lock();
+        try {
+            Set<String> pending = this.registeredDuringReload;
+            if (pending != null)
+                pending.add(username);
+            BloomFilter filter = this.usernames;
+            if (filter == null)
+                return;
+            filter.add(username);
+            full = filter.isOverCapacity();
+        } finally {
+            this.swapLock.readLock().unlock();
+        }
+        if (full)
+            this.reload();
+    }
+
+    @Override
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void reload() {
+        this.setRegisteredDuringReload(ConcurrentHashMap.newKeySet());
+        BloomFilter filter = new BloomFilter(Math.max(MIN_CAPACITY, 2 * this.userRepository.count()), FALSE_POSITIVE_RATE);
+        try {
+            String after = "";
+            List<String> chunk;
+            do {
+                chunk = this.userRepository.findUsernamesAfter(after, PageRequest.of(0, CHUNK_SIZE));
+                chunk.forEach(filter::add);
+                if (!chunk.isEmpty())
+                    after = chunk.get(chunk.size() - 1);
+            } while (chunk.size() == CHUNK_SIZE);
+        } catch (RuntimeException exception) {
+            this.setRegisteredDuringReload(null);
+            throw exception;
+        }
+        this.swapLock.writeLock().lock();
+        try {
+            // the scan may have passed these names before they were inserted
+            this.registeredDuringReload.forEach(filter::add);
+            this.registeredDuringReload = null;
+            this.usernames = filter;
+        } finally {
+            this.swapLock.writeLock().unlock();
+        }
+        log.info("Loaded username filter");
+    }
+
+    private void setRegisteredDuringReload(Set<String> names) {
+        this.swapLock.writeLock().lock();
+        try {
+            this.registeredDuringReload = names;
+        } finally {
+            this.swapLock.writeLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.movieapp.web;
+
+import com.example.movieapp.model.CatalogImportFormat;
+import com.example.movieapp.model.CatalogImportResult;
+import com.example.movieapp.service.ActorService;
+import com.example.movieapp.service.CatalogImportService;
+import com.example.movieapp.service.MovieGenreService;
+import com.example.movieapp.service.MovieService;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bulk catalog maintenance for admins (the security config restricts {@code /admin/**}): deletes and
+ * repricing, each one transaction of set-based statements however many rows it touches, and imports,
+ * committed in chunks.
+ */
+@Controller
+@RequestMapping("/admin")
+public class AdminCatalogController {
+
+    private final MovieService movieService;
+    private final ActorService actorService;
+    private final MovieGenreService movieGenreService;
+    private final CatalogImportService catalogImportService;
+
+    public AdminCatalogController(MovieService movieService, ActorService actorService,
+                                  MovieGenreService movieGenreService, CatalogImportService catalogImportService) {
+        this.movieService = movieService;
+        this.actorService = actorService;
+        this.movieGenreService = movieGenreService;
+        this.catalogImportService = catalogImportService;
+    }
+
+    @PostMapping("/movies/delete")
+    @ResponseBody
+    public Map<String, Object> deleteMovies(@RequestParam List<Long> ids) {
+        return result(ids, this.movieService.deleteMovies(ids));
+    }
+
+    @PostMapping("/actors/delete")
+    @ResponseBody
+    public Map<String, Object> deleteActors(@RequestParam List<Long> ids) {
+        return result(ids, this.actorService.deleteActors(ids));
+    }
+
+    @PostMapping("/genres/delete")
+    @ResponseBody
+    public Map<String, Object> deleteMovieGenres(@RequestParam List<Long> ids) {
+        return result(ids, this.movieGenreService.deleteMovieGenres(ids));
+    }
+
+    @PostMapping("/genres/{id}/reprice")
+    @ResponseBody
+    public Map<String, Object> changePricesOfGenre(@PathVariable Long id, @RequestParam double percent) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("genre", id);
+        result.put("percent", percent);
+        result.put("updated", this.movieService.changePricesOfGenre(id, percent));
+        return result;
+    }
+
+    @PostMapping("/movies/price")
+    @ResponseBody
+    public Map<String, Object> setPrices(@RequestParam List<Long> ids, @RequestParam double price) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("requested", ids.size());
+        result.put("updated", this.movieService.setPrices(ids, price));
+        return result;
+    }
+
+    // the request body is the file itself (text/csv or application/json), read as it arrives
+    @PostMapping(value = "/import", consumes = {"text/csv", MediaType.APPLICATION_JSON_VALUE})
+    @ResponseBody
+    public Map<String, Object> importCatalog(HttpServletRequest req) throws IOException {
+        CatalogImportFormat format = MediaType.APPLICATION_JSON.isCompatibleWith(MediaType.parseMediaType(req.getContentType()))
+                ? CatalogImportFormat.JSON : CatalogImportFormat.CSV;
+        CatalogImportResult imported = this.catalogImportService.importCatalog(req.getInputStream(), format);
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("rows", imported.getRows());
+        result.put("movies", imported.getMovies());
+        result.put("actors", imported.getActors());
+        result.put("genres", imported.getMovieGenres());
+        result.put("skipped", imported.getSkipped());
+        result.put("millis", imported.getMillis());
+        result.put("rowsPerSecond", imported.getRowsPerSecond());
+        result.put("failure", imported.getFailure());
+        return result;
+    }
+
+    private static Map<String, Object> result(List<Long> ids, int deleted) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("requested", ids.size());
+        result.put("deleted", deleted);
+        return result;
+    }
+}
@@ -1,45 +1,56 @@
 package com.example.movieapp.web;
 
 import com.example.movieapp.model.ChargeRequest;
-import com.example.movieapp.service.ShoppingCartService;
-import com.example.movieapp.service.impl.StripeService;
-import com.stripe.exception.StripeException;
-import com.stripe.model.Charge;
-import org.springframework.beans.factory.annotation.Autowired;
+import com.example.movieapp.model.CheckoutOrder;
+import com.example.movieapp.service.CheckoutService;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
-import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
 
 import javax.servlet.http.HttpServletRequest;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 @Controller
 public class ChargeController {
 
-    @Autowired
-    private StripeService paymentsService;
+    private final CheckoutService checkoutService;
 
-    @Autowired
-    private ShoppingCartService shoppingCartService;
+    public ChargeController(CheckoutService checkoutService) {
+        this.checkoutService = checkoutService;
+    }
 
     @PostMapping("/charge")
-    public String charge(ChargeRequest chargeRequest, Model model, HttpServletRequest req)
-            throws StripeException {
+    public String charge(ChargeRequest chargeRequest, HttpServletRequest req) {
         String username = req.getRemoteUser();
-        this.shoppingCartService.deleteCart(username);
-        chargeRequest.setDescription("Example charge");
-        chargeRequest.setCurrency(ChargeRequest.Currency.EUR);
-        Charge charge = paymentsService.charge(chargeRequest);
-        model.addAttribute("id", charge.getId());
-        model.addAttribute("status", charge.getStatus());
-        model.addAttribute("chargeId", charge.getId());
-        model.addAttribute("balance_transaction", charge.getBalanceTransaction());
+        try {
+            Long orderId = this.checkoutService.placeOrder(username, chargeRequest);
+            return "redirect:/checkout/orders/" + orderId;
+        } catch (RuntimeException exception) {
+            return "redirect:/shopping-cart?error=" + exception.getMessage();
+        }
+    }
+
+    @GetMapping("/checkout/orders/{id}")
+    public String getOrderPage(@PathVariable Long id, HttpServletRequest req, Model model) {
+        CheckoutOrder order = this.checkoutService.getOrder(id, req.getRemoteUser());
+        model.addAttribute("order", order);
+        model.addAttribute("error", order.getFailureReason());
         return "stripe-result.html";
     }
 
-    @ExceptionHandler(StripeException.class)
-    public String handleError(Model model, StripeException ex) {
-        model.addAttribute("error", ex.getMessage());
-        return "result";
+    // polled by the order page while the payment is pending
+    @GetMapping("/checkout/orders/{id}/status")
+    @ResponseBody
+    public Map<String, Object> getOrderStatus(@PathVariable Long id, HttpServletRequest req) {
+        CheckoutOrder order = this.checkoutService.getOrder(id, req.getRemoteUser());
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("id", order.getId());
+        status.put("status", order.getStatus());
+        status.put("failureReason", order.getFailureReason());
+        return status;
     }
-}
\ No newline at end of file
+}
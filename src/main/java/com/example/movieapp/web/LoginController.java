@@ -1,6 +1,7 @@
 package com.example.movieapp.web;
 
 import com.example.movieapp.model.User;
+import com.example.movieapp.model.UserPrincipal;
 import com.example.movieapp.model.exceptions.InvalidUserCredentialsException;
 import com.example.movieapp.service.AuthService;
 import org.springframework.stereotype.Controller;
@@ -32,7 +33,7 @@ public class LoginController {
         try{
             user = this.authService.login(request.getParameter("username"),
                     request.getParameter("password"));
-            request.getSession().setAttribute("user", user);
+            request.getSession().setAttribute("user", UserPrincipal.from(user).withoutPassword());
             return "redirect:/movies";
         }
         catch (InvalidUserCredentialsException exception) {
@@ -3,8 +3,13 @@ package com.example.movieapp.web;
 
 import com.example.movieapp.model.Actor;
 import com.example.movieapp.model.Movie;
+import com.example.movieapp.model.MovieCard;
 import com.example.movieapp.model.MovieGenre;
+import com.example.movieapp.model.MoviePage;
+import com.example.movieapp.model.MovieSortKey;
+import com.example.movieapp.model.exceptions.InvalidArgumentsException;
 import com.example.movieapp.service.ActorService;
+import com.example.movieapp.service.GenreStatisticsService;
 import com.example.movieapp.service.MovieGenreService;
 import com.example.movieapp.service.MovieService;
 import org.springframework.format.annotation.DateTimeFormat;
@@ -23,25 +28,46 @@ public class MovieController {
     private final MovieService movieService;
     private final ActorService actorService;
     private final MovieGenreService movieGenreService;
+    private final GenreStatisticsService genreStatisticsService;
 
-    public MovieController(MovieService movieService, ActorService actorService, MovieGenreService movieGenreService) {
+    public MovieController(MovieService movieService, ActorService actorService, MovieGenreService movieGenreService,
+                           GenreStatisticsService genreStatisticsService) {
         this.movieService = movieService;
         this.actorService = actorService;
         this.movieGenreService = movieGenreService;
+        this.genreStatisticsService = genreStatisticsService;
     }
 
     @GetMapping({"/","/movies"})
-    public String showList(Model model) {
-        List<Movie> movies;
-        movies = this.movieService.getAllMovies();
+    public String showList(@RequestParam(defaultValue = "ID") MovieSortKey sort,
+                           @RequestParam(required = false) Long afterId,
+                           @RequestParam(required = false) String after,
+                           @RequestParam(defaultValue = "24") int size,
+                           Model model) {
+        MoviePage page;
+        try {
+            page = this.movieService.getMoviePage(sort, afterId, after, size);
+        } catch (InvalidArgumentsException exception) {
+            return "redirect:/movies";
+        }
         List<Actor> actors=this.actorService.getAllActors();
         List<MovieGenre> movieGenres=this.movieGenreService.findAllMovieGenres();
-        model.addAttribute("movies", movies);
+        model.addAttribute("page", page);
+        model.addAttribute("movies", MovieCard.from(page.getMovies()));
         model.addAttribute("actors", actors);
         model.addAttribute("movieGenres", movieGenres);
+        model.addAttribute("genreStatistics", this.genreStatisticsService.getAllStatistics());
         return "list.html";
     }
 
+    @GetMapping("/movies/search")
+    public String search(@RequestParam(defaultValue = "") String q, Model model) {
+        model.addAttribute("query", q);
+        model.addAttribute("movies", MovieCard.from(this.movieService.searchMovies(q, 48)));
+        model.addAttribute("movieGenres", this.movieGenreService.findAllMovieGenres());
+        model.addAttribute("genreStatistics", this.genreStatisticsService.getAllStatistics());
+        return "list.html";
+    }
 
     @GetMapping("/movies/add")
     public String showAdd(Model model) {
@@ -57,7 +83,7 @@ public class MovieController {
         Movie movie= this.movieService.getMovie(id);
         List<Actor> actors=this.actorService.getAllActors();
         List<MovieGenre> movieGenres=this.movieGenreService.findAllMovieGenres();
-        model.addAttribute("movie", movie);
+        model.addAttribute("movie", MovieCard.from(movie));
         model.addAttribute("actors", actors);
         model.addAttribute("movieGenres", movieGenres);
         return "form.html";
@@ -2,15 +2,22 @@ package com.example.movieapp.web;
 
 import com.example.movieapp.model.Role;
 import com.example.movieapp.model.exceptions.InvalidArgumentsException;
+import com.example.movieapp.model.exceptions.InvalidUsernameOrPasswordException;
 import com.example.movieapp.model.exceptions.PasswordsDoNotMatchException;
+import com.example.movieapp.model.exceptions.UsernameAlreadyExistsException;
 import com.example.movieapp.service.AuthService;
 import com.example.movieapp.service.UserService;
+import com.example.movieapp.service.UsernameAvailabilityService;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 @Controller
 @RequestMapping("/register")
@@ -18,10 +25,13 @@ public class RegisterController {
 
     private final AuthService authService;
     private final UserService userService;
+    private final UsernameAvailabilityService usernameAvailabilityService;
 
-    public RegisterController(AuthService authService, UserService userService) {
+    public RegisterController(AuthService authService, UserService userService,
+                              UsernameAvailabilityService usernameAvailabilityService) {
         this.authService = authService;
         this.userService = userService;
+        this.usernameAvailabilityService = usernameAvailabilityService;
     }
 
     @GetMapping
@@ -34,6 +44,16 @@ public class RegisterController {
         return "register.html";
     }
 
+    // checked by the register form while the username is typed
+    @GetMapping("/check")
+    @ResponseBody
+    public Map<String, Object> checkUsername(@RequestParam String username) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("username", username);
+        result.put("available", !username.isEmpty() && this.usernameAvailabilityService.isAvailable(username));
+        return result;
+    }
+
     @PostMapping
     public String register(@RequestParam String username,
                            @RequestParam String email,
@@ -43,7 +63,8 @@ public class RegisterController {
         try {
             this.userService.register(username, email, password, repeatedPassword, role);
             return "redirect:/login";
-        } catch (InvalidArgumentsException | PasswordsDoNotMatchException exception) {
+        } catch (InvalidArgumentsException | InvalidUsernameOrPasswordException | PasswordsDoNotMatchException
+                | UsernameAlreadyExistsException exception) {
             return "redirect:/register?error=" + exception.getMessage();
         }
     }
@@ -1,9 +1,7 @@
 package com.example.movieapp.web;
 
 import com.example.movieapp.model.ChargeRequest;
-import com.example.movieapp.model.CustomOAuth2User;
 import com.example.movieapp.model.ShoppingCart;
-import com.example.movieapp.model.User;
 import com.example.movieapp.service.ShoppingCartService;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
@@ -12,6 +10,7 @@ import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 
 import javax.servlet.http.HttpServletRequest;
+import java.util.UUID;
 
 @Controller
 @RequestMapping("/shopping-cart")
@@ -38,58 +37,31 @@ public class ShoppingCartController {
         String username = req.getRemoteUser();
         ShoppingCart shoppingCart = this.shoppingCartService.getActiveShoppingCart(username);
         double prices=this.shoppingCartService.getPrice(shoppingCart.getId());
-        model.addAttribute("amount", (int)prices * 100); // in cents
+        model.addAttribute("amount", (int) Math.round(prices * 100)); // in cents
         model.addAttribute("stripePublicKey", stripePublicKey);
         model.addAttribute("currency", ChargeRequest.Currency.EUR);
-        model.addAttribute("movies", this.shoppingCartService.listAllMoviesInShoppingCart(shoppingCart.getId()));
+        model.addAttribute("idempotencyKey", UUID.randomUUID().toString());
+        model.addAttribute("movies", this.shoppingCartService.listCartMovieViews(shoppingCart.getId()));
         return "shopping-cart.html";
     }
 
     @PostMapping("/add-movie/{id}")
     public String addMovieToShoppingCart(@PathVariable Long id, HttpServletRequest req, Authentication authentication) {
-        CustomOAuth2User y=new CustomOAuth2User();
-        if(authentication.getPrincipal().getClass().isInstance(y)){
-            try {
-                CustomOAuth2User user = (CustomOAuth2User) authentication.getPrincipal();
-                this.shoppingCartService.addMovieToShoppingCart(user.getName(), id);
-                return "redirect:/shopping-cart";
-            } catch (RuntimeException exception) {
-                return "redirect:/shopping-cart?error=" + exception.getMessage();
-            }
-        }else
-            try {
-                User user = (User) authentication.getPrincipal();
-                this.shoppingCartService.addMovieToShoppingCart(user.getUsername(), id);
-                return "redirect:/shopping-cart";
-            } catch (RuntimeException exception) {
-                return "redirect:/shopping-cart?error=" + exception.getMessage();
-            }
-
-
-
+        try {
+            this.shoppingCartService.addMovieToShoppingCart(authentication.getName(), id);
+            return "redirect:/shopping-cart";
+        } catch (RuntimeException exception) {
+            return "redirect:/shopping-cart?error=" + exception.getMessage();
+        }
     }
 
     @PostMapping("/delete-movie/{id}")
     public String deleteMovieFromShoppingCart(@PathVariable Long id, HttpServletRequest req, Authentication authentication) {
-        CustomOAuth2User y=new CustomOAuth2User();
-        if(authentication.getPrincipal().getClass().isInstance(y)){
-            try {
-                CustomOAuth2User user = (CustomOAuth2User) authentication.getPrincipal();
-                this.shoppingCartService.deleteMovieFromShoppingCart(user.getName(), id);
-                return "redirect:/shopping-cart";
-            } catch (RuntimeException exception) {
-                return "redirect:/shopping-cart?error=" + exception.getMessage();
-            }
-        }else
-            try {
-                User user = (User) authentication.getPrincipal();
-                this.shoppingCartService.deleteMovieFromShoppingCart(user.getUsername(), id);
-                return "redirect:/shopping-cart";
-            } catch (RuntimeException exception) {
-                return "redirect:/shopping-cart?error=" + exception.getMessage();
-            }
-
-
-
+        try {
+            this.shoppingCartService.deleteMovieFromShoppingCart(authentication.getName(), id);
+            return "redirect:/shopping-cart";
+        } catch (RuntimeException exception) {
+            return "redirect:/shopping-cart?error=" + exception.getMessage();
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,38 @@
+-- At most one CREATED (active) cart per user. Older duplicates created by the previous
+-- find-then-save race are canceled first so the index can be built.
+UPDATE shopping_cart SET status = 'CANCELED'
+WHERE status = 'CREATED'
+  AND id NOT IN (SELECT MIN(id) FROM shopping_cart WHERE status = 'CREATED' GROUP BY user_username);
+
+CREATE UNIQUE INDEX IF NOT EXISTS uk_shopping_cart_active_user
+    ON shopping_cart (user_username)
+    WHERE status = 'CREATED';
+
+-- A movie at most once per cart. The old bag mapping allowed duplicate rows, which would stop
+-- Hibernate from adding uk_shopping_cart_movie (it only logs the failure), so they are removed
+-- first and the index is created here whether or not Hibernate managed to.
+DELETE FROM shopping_cart_movies duplicate
+USING shopping_cart_movies kept
+WHERE duplicate.shopping_cart_id = kept.shopping_cart_id
+  AND duplicate.movies_id = kept.movies_id
+  AND duplicate.ctid > kept.ctid;
+
+CREATE UNIQUE INDEX IF NOT EXISTS uk_shopping_cart_movie
+    ON shopping_cart_movies (shopping_cart_id, movies_id);
+
+-- Carts created before the version column existed.
+UPDATE shopping_cart SET version = 0 WHERE version IS NULL;
+
+-- Movie, actor and shopping cart ids come from pooled sequences (50 ids per nextval) instead of
+-- identity columns. Tables that existed before keep their rows: each sequence is moved past the
+-- highest id once, and the id defaults follow the sequence so native inserts draw from it too.
+SELECT setval('movie_seq', (SELECT MAX(id) FROM movie) + 50)
+WHERE (SELECT MAX(id) FROM movie) + 50 > (SELECT last_value FROM movie_seq);
+SELECT setval('actor_seq', (SELECT MAX(id) FROM actor) + 50)
+WHERE (SELECT MAX(id) FROM actor) + 50 > (SELECT last_value FROM actor_seq);
+SELECT setval('shopping_cart_seq', (SELECT MAX(id) FROM shopping_cart) + 50)
+WHERE (SELECT MAX(id) FROM shopping_cart) + 50 > (SELECT last_value FROM shopping_cart_seq);
+
+ALTER TABLE movie ALTER COLUMN id SET DEFAULT nextval('movie_seq');
+ALTER TABLE actor ALTER COLUMN id SET DEFAULT nextval('actor_seq');
+ALTER TABLE shopping_cart ALTER COLUMN id SET DEFAULT nextval('shopping_cart_seq');
@@ -0,0 +1,98 @@
+package com.example.movieapp.config;
+
+import com.example.movieapp.model.Role;
+import com.example.movieapp.model.User;
+import com.example.movieapp.model.UserPrincipal;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.serializer.DefaultSerializer;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.security.web.authentication.WebAuthenticationDetails;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CompactSessionSerializerTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CompactSessionSerializer serializer = new CompactSessionSerializer(meterRegistry);
+
+    private final UserPrincipal principal =
+            UserPrincipal.from(new User("user", "password", "email@email.com", Role.ROLE_USER)).withoutPassword();
+
+    @Test
+    @DisplayName("A form login security context should round trip as a compact record")
+    void securityContextRoundTrip() throws IOException {
+        UsernamePasswordAuthenticationToken authentication =
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities());
+        authentication.setDetails(new WebAuthenticationDetails(new MockHttpServletRequest()));
+        SecurityContext context = new SecurityContextImpl(authentication);
+
+        byte[] bytes = serialize(context);
+        Object restored = deserialize(bytes);
+
+        assertInstanceOf(SecurityContext.class, restored);
+        Authentication restoredAuthentication = ((SecurityContext) restored).getAuthentication();
+        assertTrue(restoredAuthentication.isAuthenticated());
+        assertEquals(principal.getAuthorities(), restoredAuthentication.getAuthorities());
+        UserPrincipal restoredPrincipal = (UserPrincipal) restoredAuthentication.getPrincipal();
+        assertEquals("user", restoredPrincipal.getUsername());
+        assertEquals(Role.ROLE_USER, restoredPrincipal.getRole());
+        assertTrue(restoredPrincipal.isEnabled() && restoredPrincipal.isAccountNonLocked());
+        assertNull(restoredPrincipal.getPassword());
+
+        byte[] javaBytes = javaSerialize(context);
+        assertTrue(bytes.length < javaBytes.length,
+                () -> bytes.length + " compact bytes should be fewer than " + javaBytes.length + " java bytes");
+        assertTrue(bytes.length * 10 < javaBytes.length,
+                () -> bytes.length + " compact bytes should be a tenth of " + javaBytes.length + " java bytes");
+    }
+
+    @Test
+    @DisplayName("A bare principal should round trip")
+    void principalRoundTrip() throws IOException {
+        UserPrincipal restored = (UserPrincipal) deserialize(serialize(principal));
+
+        assertEquals(principal, restored);
+        assertEquals(principal.getRole(), restored.getRole());
+    }
+
+    @Test
+    @DisplayName("Other attributes should fall back to Java serialization")
+    void otherAttributesUseJavaSerialization() throws IOException {
+        ArrayList<String> attribute = new ArrayList<>(Arrays.asList("a", "b"));
+
+        assertEquals(attribute, deserialize(serialize(attribute)));
+        assertEquals(1, meterRegistry.get("session.attribute.bytes").tag("format", "java").summary().count());
+        assertEquals(0, meterRegistry.get("session.attribute.bytes").tag("format", "compact").summary().count());
+    }
+
+    private byte[] serialize(Object object) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        serializer.serialize(object, out);
+        return out.toByteArray();
+    }
+
+    private Object deserialize(byte[] bytes) throws IOException {
+        return serializer.deserialize(new ByteArrayInputStream(bytes));
+    }
+
+    private static byte[] javaSerialize(Object object) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new DefaultSerializer().serialize(object, out);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.movieapp.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Routing between two H2 databases standing in for the primary and the replica; each one knows its name.
+ */
+class ReplicaRoutingDataSourceTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private DataSource primary;
+    private DataSource replica;
+
+    @BeforeEach
+    void setUp() {
+        primary = database("primary");
+        replica = database("replica");
+    }
+
+    @Test
+    @DisplayName("Should send read-only transactions to the replica and the rest to the primary")
+    void routesByTransactionReadOnlyFlag() {
+        ReplicaRoutingDataSource routing = routing("SELECT 0.5", 5);
+        routing.checkReplica();
+
+        assertEquals("replica", read(routing, true));
+        assertEquals("primary", read(routing, false));
+        assertEquals("primary", new JdbcTemplate(new LazyConnectionDataSourceProxy(routing))
+                .queryForObject("SELECT name FROM node", String.class));
+        assertEquals(1, meterRegistry.get("datasource.routing").tag("target", "replica").counter().count());
+    }
+
+    @Test
+    @DisplayName("Should read from the primary while the replica lags too far behind")
+    void laggingReplicaFallsBackToPrimary() {
+        ReplicaRoutingDataSource routing = routing("SELECT 30.0", 5);
+        routing.checkReplica();
+
+        assertFalse(routing.isReplicaAvailable());
+        assertEquals("primary", read(routing, true));
+        assertEquals(30.0, meterRegistry.get("datasource.replica.lag").gauge().value());
+    }
+
+    @Test
+    @DisplayName("Should read from the primary when the lag check fails")
+    void failedLagCheckFallsBackToPrimary() {
+        ReplicaRoutingDataSource routing = routing("SELECT no_such_column FROM node", 5);
+        routing.checkReplica();
+
+        assertEquals("primary", read(routing, true));
+    }
+
+    @Test
+    @DisplayName("Should fall back to the primary when the replica refuses connections")
+    void unreachableReplicaFallsBackToPrimary() {
+        AtomicBoolean down = new AtomicBoolean();
+        DataSource flaky = new DriverManagerDataSource("jdbc:h2:mem:replica") {
+            @Override
+            public Connection getConnection() throws SQLException {
+                if (down.get())
+                    throw new SQLException("connection refused");
+                return super.getConnection();
+            }
+        };
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primary, flaky, 5, meterRegistry, "SELECT 0");
+        routing.checkReplica();
+        down.set(true);
+
+        assertEquals("primary", read(routing, true));
+        assertFalse(routing.isReplicaAvailable());
+        assertEquals(1, meterRegistry.get("datasource.routing.fallbacks").counter().count());
+    }
+
+    @Test
+    @DisplayName("Should keep reads on the primary for a while after a write on this node")
+    void readsStayOnPrimaryAfterWrite() {
+        ReplicaRoutingDataSource routing = routing("SELECT 0", 60);
+        routing.checkReplica();
+
+        assertEquals("replica", read(routing, true));
+        assertEquals("primary", read(routing, false));
+        assertEquals("primary", read(routing, true));
+    }
+
+    @Test
+    @DisplayName("Should keep reads on the primary for a while after being pinned")
+    void pinnedReadsStayOnPrimary() {
+        ReplicaRoutingDataSource routing = routing("SELECT 0", 60);
+        routing.checkReplica();
+
+        routing.pinToPrimary();
+
+        assertEquals("primary", read(routing, true));
+    }
+
+    private ReplicaRoutingDataSource routing(String lagQuery, double maxLagSeconds) {
+        return new ReplicaRoutingDataSource(primary, replica, maxLagSeconds, meterRegistry, lagQuery);
+    }
+
+    private static String read(ReplicaRoutingDataSource routing, boolean readOnly) {
+        DataSource dataSource = new LazyConnectionDataSourceProxy(routing);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        transactionTemplate.setReadOnly(readOnly);
+        return transactionTemplate.execute(status ->
+                new JdbcTemplate(dataSource).queryForObject("SELECT name FROM node", String.class));
+    }
+
+    private static DataSource database(String name) {
+        DataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS node (name VARCHAR(16))");
+        jdbcTemplate.update("DELETE FROM node");
+        jdbcTemplate.update("INSERT INTO node VALUES (?)", name);
+        return dataSource;
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.movieapp.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestDatabaseRecorderTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final RequestDatabaseRecorder recorder = new RequestDatabaseRecorder(meterRegistry);
+    private final DataSource dataSource =
+            RequestDatabaseRecorder.track(new DriverManagerDataSource("jdbc:h2:mem:holdtime;DB_CLOSE_DELAY=-1"));
+
+    @Test
+    @DisplayName("Should attribute connection hold time to the handler or the view phase of an endpoint")
+    void recordsHoldTimePerPhase() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/movies/1/edit");
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/movies/{id}/edit");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        recorder.preHandle(request, response, this);
+        holdConnection(20);
+        recorder.postHandle(request, response, this, null);
+        holdConnection(10);
+        recorder.afterCompletion(request, response, this, null);
+
+        Timer handler = meterRegistry.get("db.connection.hold").tag("uri", "/movies/{id}/edit").tag("phase", "handler").timer();
+        Timer view = meterRegistry.get("db.connection.hold").tag("uri", "/movies/{id}/edit").tag("phase", "view").timer();
+        assertEquals(1, handler.count());
+        assertTrue(handler.totalTime(TimeUnit.MILLISECONDS) >= 20);
+        assertTrue(view.totalTime(TimeUnit.MILLISECONDS) >= 10);
+    }
+
+    @Test
+    @DisplayName("Should count statement executions and commits of a request as round trips")
+    void countsRoundTrips() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/movies");
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/movies");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        recorder.preHandle(request, response, this);
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement statement = connection.prepareStatement("SELECT ?")) {
+                statement.setInt(1, 1);
+                statement.executeQuery().close();
+                statement.executeQuery().close();
+            }
+            connection.commit();
+        }
+        recorder.afterCompletion(request, response, this, null);
+
+        DistributionSummary roundTrips = meterRegistry.get("db.round.trips").tag("uri", "/movies").summary();
+        assertEquals(1, roundTrips.count());
+        assertEquals(3, roundTrips.totalAmount());
+    }
+
+    @Test
+    @DisplayName("Should not time connections outside web requests")
+    void ignoresConnectionsOutsideRequests() throws Exception {
+        holdConnection(1);
+
+        assertTrue(meterRegistry.find("db.connection.hold").timers().isEmpty());
+    }
+
+    private void holdConnection(long millis) throws Exception {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.createStatement().execute("SELECT 1");
+            Thread.sleep(millis);
+        }
+    }
+}
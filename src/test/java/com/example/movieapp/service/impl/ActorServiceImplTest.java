@@ -3,6 +3,7 @@ package com.example.movieapp.service.impl;
 import com.example.movieapp.model.Actor;
 import com.example.movieapp.model.exceptions.ActorNotFound;
 import com.example.movieapp.repository.ActorRepository;
+import com.example.movieapp.service.MovieSearchService;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -13,6 +14,7 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -23,6 +25,9 @@ class ActorServiceImplTest {
     @Mock
     private ActorRepository actorRepository;
 
+    @Mock
+    private MovieSearchService movieSearchService;
+
     @InjectMocks
     private ActorServiceImpl actorService;
 
@@ -162,4 +167,27 @@ class ActorServiceImplTest {
 
         verify(actorRepository, times(1)).findAll();
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Should delete actors and their movie links and reindex the movies they played in")
+    void deleteActorsRemovesLinksAndReindexesMovies() {
+        List<Long> ids = Arrays.asList(1L, 2L);
+        when(actorRepository.findMovieIdsByActorIdIn(ids)).thenReturn(Arrays.asList(10L, 11L));
+        when(actorRepository.deleteByIdIn(ids)).thenReturn(2);
+
+        int deleted = actorService.deleteActors(ids);
+
+        assertEquals(2, deleted);
+        verify(actorRepository).removeFromMovies(ids);
+        verify(movieSearchService).reindex(Set.of(10L, 11L));
+        verify(actorRepository, never()).deleteById(anyLong());
+    }
+
+    @Test
+    @DisplayName("Should not touch the database when no actor ids are given")
+    void deleteActorsWithoutIds() {
+        assertEquals(0, actorService.deleteActors(List.of()));
+
+        verify(actorRepository, never()).deleteByIdIn(anyList());
+    }
+}
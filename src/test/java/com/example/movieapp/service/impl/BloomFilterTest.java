@@ -0,0 +1,38 @@
+package com.example.movieapp.service.impl;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BloomFilterTest {
+
+    @Test
+    @DisplayName("Should find every added value and keep false positives near the configured rate")
+    void noFalseNegativesAndBoundedFalsePositives() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++)
+            filter.add("user" + i);
+
+        for (int i = 0; i < 10_000; i++)
+            assertTrue(filter.mightContain("user" + i));
+        int falsePositives = 0;
+        for (int i = 0; i < 10_000; i++)
+            if (filter.mightContain("other" + i))
+                falsePositives++;
+        assertTrue(falsePositives < 200, falsePositives + " false positives");
+        assertFalse(filter.isOverCapacity());
+    }
+
+    @Test
+    @DisplayName("Should report when more values were added than it was sized for")
+    void reportsOverCapacity() {
+        BloomFilter filter = new BloomFilter(2, 0.01);
+        filter.add("a");
+        filter.add("b");
+        assertFalse(filter.isOverCapacity());
+        filter.add("c");
+        assertTrue(filter.isOverCapacity());
+    }
+}
@@ -0,0 +1,205 @@
+package com.example.movieapp.service.impl;
+
+import com.example.movieapp.config.CacheConfig;
+import com.example.movieapp.config.ReplicaRoutingDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CacheInvalidationServiceImplTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private final ConcurrentMapCacheManager cacheManager =
+            new ConcurrentMapCacheManager(CacheConfig.MOVIES, CacheConfig.MOVIE_CATALOG);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<Long> genreInvalidations = new ArrayList<>();
+
+    private CacheInvalidationServiceImpl invalidationService;
+
+    @BeforeEach
+    void setUp() {
+        invalidationService = service(new StaticListableBeanFactory());
+        invalidationService.onInvalidation("genreStatistics", genreInvalidations::add);
+        movies().put(1L, "movie 1");
+        movies().put(2L, "movie 2");
+        cacheManager.getCache(CacheConfig.MOVIE_CATALOG).put("all", "catalog");
+    }
+
+    @Test
+    @DisplayName("Should publish numbered invalidations on the notification channel")
+    void publishesNumberedMessages() {
+        invalidationService.publish(CacheConfig.MOVIES, 1L);
+        invalidationService.publish(CacheConfig.MOVIE_CATALOG, null);
+        invalidationService.sendQueued();
+
+        String node = invalidationService.getNodeId();
+        verify(jdbcTemplate).query(eq("SELECT pg_notify(?, ?)"), any(ResultSetExtractor.class),
+                eq(CacheInvalidationServiceImpl.CHANNEL), eq(node + "|1|movies|1"));
+        verify(jdbcTemplate).query(eq("SELECT pg_notify(?, ?)"), any(ResultSetExtractor.class),
+                eq(CacheInvalidationServiceImpl.CHANNEL), eq(node + "|2|movieCatalog|"));
+    }
+
+    @Test
+    @DisplayName("Should number and send invalidations published in a transaction only after it commits")
+    void publishesAfterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            invalidationService.publish(CacheConfig.MOVIES, 1L);
+            invalidationService.publish(CacheConfig.MOVIES, 2L);
+            verifyNoInteractions(jdbcTemplate);
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        invalidationService.sendQueued();
+
+        String node = invalidationService.getNodeId();
+        verify(jdbcTemplate).query(eq("SELECT pg_notify(?, ?)"), any(ResultSetExtractor.class),
+                eq(CacheInvalidationServiceImpl.CHANNEL), eq(node + "|1|movies|1"));
+        verify(jdbcTemplate).query(eq("SELECT pg_notify(?, ?)"), any(ResultSetExtractor.class),
+                eq(CacheInvalidationServiceImpl.CHANNEL), eq(node + "|2|movies|2"));
+    }
+
+    @Test
+    @DisplayName("Should not send invalidations published in a transaction that rolls back")
+    void rollbackDoesNotPublish() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            invalidationService.publish(CacheConfig.MOVIES, 1L);
+
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        invalidationService.sendQueued();
+
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    @DisplayName("Should evict the named entry or cache for invalidations from other nodes")
+    void evictsOnRemoteInvalidation() {
+        invalidationService.handle("other|1|movies|1");
+        invalidationService.handle("other|2|movieCatalog|");
+        invalidationService.handle("other|3|genreStatistics|7");
+
+        assertNull(movies().get(1L));
+        assertNotNull(movies().get(2L));
+        assertNull(cacheManager.getCache(CacheConfig.MOVIE_CATALOG).get("all"));
+        assertEquals(List.of(7L), genreInvalidations);
+        assertEquals(3, meterRegistry.get("cache.invalidation.received").counter().count());
+    }
+
+    @Test
+    @DisplayName("Should pass names, including ones containing the separator, to name handlers")
+    void passesNamesToNameHandlers() {
+        List<String> names = new ArrayList<>();
+        invalidationService.onNameInvalidation("usernames", names::add);
+
+        invalidationService.publishName("usernames", "a|b");
+        invalidationService.sendQueued();
+        invalidationService.handle("other|1|usernames|a|b");
+
+        verify(jdbcTemplate).query(eq("SELECT pg_notify(?, ?)"), any(ResultSetExtractor.class),
+                eq(CacheInvalidationServiceImpl.CHANNEL), eq(invalidationService.getNodeId() + "|1|usernames|a|b"));
+        assertEquals(List.of("a|b"), names);
+    }
+
+    @Test
+    @DisplayName("Should ignore its own invalidations")
+    void ignoresOwnMessages() {
+        invalidationService.handle(invalidationService.getNodeId() + "|1|movies|1");
+
+        assertNotNull(movies().get(1L));
+    }
+
+    @Test
+    @DisplayName("Should clear everything when a node's sequence skips a message")
+    void resyncsOnSequenceGap() {
+        invalidationService.handle("other|4|movies|1");
+        invalidationService.handle("other|6|movies|1");
+
+        assertNull(movies().get(2L));
+        assertNull(cacheManager.getCache(CacheConfig.MOVIE_CATALOG).get("all"));
+        assertEquals(1, genreInvalidations.size());
+        assertNull(genreInvalidations.get(0));
+        assertEquals(1, meterRegistry.get("cache.invalidation.resyncs").tag("reason", "gap").counter().count());
+    }
+
+    @Test
+    @DisplayName("Should apply a late message without resyncing or moving the sequence back")
+    void lateMessageIsNotAGap() {
+        invalidationService.handle("other|4|movies|1");
+        invalidationService.handle("other|3|movies|2");
+        invalidationService.handle("other|5|movieCatalog|");
+
+        assertNull(movies().get(1L));
+        assertNull(movies().get(2L));
+        assertNull(cacheManager.getCache(CacheConfig.MOVIE_CATALOG).get("all"));
+        assertTrue(genreInvalidations.isEmpty());
+        assertTrue(meterRegistry.find("cache.invalidation.resyncs").counters().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should not publish when invalidation is disabled")
+    void disabledDoesNotPublish() {
+        CacheInvalidationServiceImpl disabled = new CacheInvalidationServiceImpl(cacheManager, jdbcTemplate,
+                new StaticListableBeanFactory().getBeanProvider(ReplicaRoutingDataSource.class),
+                meterRegistry, false, "", "", "", 100);
+
+        disabled.publish(CacheConfig.MOVIES, 1L);
+        disabled.sendQueued();
+
+        verify(jdbcTemplate, never()).query(anyString(), any(ResultSetExtractor.class), any(Object[].class));
+    }
+
+    @Test
+    @DisplayName("Should pin reads to the primary before evicting for another node's write")
+    void remoteInvalidationPinsReadsToPrimary() {
+        ReplicaRoutingDataSource replicaRoutingDataSource = mock(ReplicaRoutingDataSource.class);
+        CacheInvalidationServiceImpl withReplica =
+                service(new StaticListableBeanFactory(Map.of("replicaRoutingDataSource", replicaRoutingDataSource)));
+
+        withReplica.handle(withReplica.getNodeId() + "|1|movies|1");
+        verifyNoInteractions(replicaRoutingDataSource);
+
+        withReplica.handle("other|1|movies|1");
+        verify(replicaRoutingDataSource).pinToPrimary();
+    }
+
+    private CacheInvalidationServiceImpl service(StaticListableBeanFactory beans) {
+        return new CacheInvalidationServiceImpl(cacheManager, jdbcTemplate,
+                beans.getBeanProvider(ReplicaRoutingDataSource.class), meterRegistry, true,
+                "jdbc:postgresql://localhost/none", "user", "password", 100);
+    }
+
+    private Cache movies() {
+        return cacheManager.getCache(CacheConfig.MOVIES);
+    }
+}
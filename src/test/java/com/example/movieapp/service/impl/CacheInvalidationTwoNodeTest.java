@@ -0,0 +1,75 @@
+package com.example.movieapp.service.impl;
+
+import com.example.movieapp.config.CacheConfig;
+import com.example.movieapp.config.ReplicaRoutingDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Two nodes, each with its own caches, talking through a real Postgres. Needs a reachable database:
+ * {@code mvn test -Dtest=CacheInvalidationTwoNodeTest -Dpg.url=jdbc:postgresql://localhost:5432/MoviesDb
+ * -Dpg.username=postgres -Dpg.password=...}
+ */
+@EnabledIfSystemProperty(named = "pg.url", matches = ".+")
+class CacheInvalidationTwoNodeTest {
+
+    private final ConcurrentMapCacheManager cachesA = new ConcurrentMapCacheManager(CacheConfig.MOVIES);
+    private final ConcurrentMapCacheManager cachesB = new ConcurrentMapCacheManager(CacheConfig.MOVIES);
+    private CacheInvalidationServiceImpl nodeA;
+    private CacheInvalidationServiceImpl nodeB;
+
+    @BeforeEach
+    void setUp() throws InterruptedException {
+        nodeA = node(cachesA);
+        nodeB = node(cachesB);
+        nodeA.start();
+        nodeB.start();
+        // both listeners resync when they connect, so fill the caches after that
+        Thread.sleep(1000);
+        cachesA.getCache(CacheConfig.MOVIES).put(1L, "movie 1");
+        cachesB.getCache(CacheConfig.MOVIES).put(1L, "movie 1");
+        cachesB.getCache(CacheConfig.MOVIES).put(2L, "movie 2");
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        nodeA.stop();
+        nodeB.stop();
+    }
+
+    @Test
+    @DisplayName("An eviction published by one node should reach the other node")
+    void evictionReachesOtherNode() throws InterruptedException {
+        nodeA.publish(CacheConfig.MOVIES, 1L);
+
+        Cache movies = cachesB.getCache(CacheConfig.MOVIES);
+        long deadline = System.currentTimeMillis() + 5000;
+        while (movies.get(1L) != null && System.currentTimeMillis() < deadline)
+            Thread.sleep(20);
+        assertNull(movies.get(1L));
+        assertNotNull(movies.get(2L));
+        assertNotNull(cachesA.getCache(CacheConfig.MOVIES).get(1L));
+    }
+
+    private static CacheInvalidationServiceImpl node(ConcurrentMapCacheManager cacheManager) {
+        String url = System.getProperty("pg.url");
+        String username = System.getProperty("pg.username", "postgres");
+        String password = System.getProperty("pg.password", "");
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(url, username, password);
+        return new CacheInvalidationServiceImpl(cacheManager, new JdbcTemplate(dataSource),
+                new StaticListableBeanFactory().getBeanProvider(ReplicaRoutingDataSource.class), new SimpleMeterRegistry(),
+                true, url, username, password, 100);
+    }
+}
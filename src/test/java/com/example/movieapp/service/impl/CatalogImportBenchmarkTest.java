@@ -0,0 +1,90 @@
+package com.example.movieapp.service.impl;
+
+import com.example.movieapp.model.CatalogImportFormat;
+import com.example.movieapp.model.CatalogImportResult;
+import com.example.movieapp.repository.ActorRepository;
+import com.example.movieapp.repository.MovieGenreRepository;
+import com.example.movieapp.repository.MovieRepository;
+import com.example.movieapp.service.GenreStatisticsService;
+import com.example.movieapp.service.MovieSearchService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Imports a generated catalog into a real Postgres and logs the rows per second; record the figure in
+ * the {@link CatalogImportServiceImpl} Javadoc. Works in its own
+ * schema, which it creates and whose tables it drops afterwards:
+ * {@code mvn test -Dtest=CatalogImportBenchmarkTest -Dpg.url=jdbc:postgresql://localhost:5432/MoviesDb
+ * -Dpg.username=postgres -Dpg.password=... [-Dimport.rows=100000]}
+ */
+@Slf4j
+@EnabledIfSystemProperty(named = "pg.url", matches = ".+")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@DataJpaTest(properties = {
+        "spring.datasource.url=${pg.url}",
+        "spring.datasource.username=${pg.username:postgres}",
+        "spring.datasource.password=${pg.password:}",
+        "spring.datasource.hikari.connection-init-sql=CREATE SCHEMA IF NOT EXISTS catalog_import_benchmark",
+        "spring.datasource.hikari.data-source-properties.currentSchema=catalog_import_benchmark",
+        "spring.datasource.hikari.data-source-properties.reWriteBatchedInserts=true",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false",
+        "spring.sql.init.mode=never"
+})
+class CatalogImportBenchmarkTest {
+
+    private static final int GENRES = 20;
+    private static final int ACTORS = 5_000;
+
+    @Autowired
+    private MovieRepository movieRepository;
+
+    @Autowired
+    private ActorRepository actorRepository;
+
+    @Autowired
+    private MovieGenreRepository movieGenreRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @DisplayName("Report rows per second for a CSV catalog import")
+    void importRowsPerSecond() {
+        int rows = Integer.getInteger("import.rows", 50_000);
+        StringBuilder csv = new StringBuilder("name,description,price,genre,imageUrl,actors\n");
+        for (int i = 0; i < rows; i++)
+            csv.append("Movie ").append(i).append(",A generated movie,").append(i % 40 + 0.99)
+                    .append(",Genre ").append(i % GENRES).append(",movie-").append(i).append(".jpg,Actor ")
+                    .append(i % ACTORS).append("|Actor ").append((i * 7 + 3) % ACTORS).append('\n');
+        CatalogImportServiceImpl service = new CatalogImportServiceImpl(this.movieRepository, this.actorRepository,
+                this.movieGenreRepository, mock(MovieSearchService.class), mock(GenreStatisticsService.class),
+                this.transactionManager, new SimpleMeterRegistry(), 1000);
+
+        CatalogImportResult result = service.importCatalog(
+                new ByteArrayInputStream(csv.toString().getBytes(StandardCharsets.UTF_8)), CatalogImportFormat.CSV);
+
+        log.info("Imported {} rows in {} ms: {} rows/s", result.getRows(), result.getMillis(),
+                result.getRowsPerSecond());
+        assertNull(result.getFailure());
+        assertEquals(rows, result.getMovies());
+        assertEquals(rows, this.movieRepository.count());
+    }
+}
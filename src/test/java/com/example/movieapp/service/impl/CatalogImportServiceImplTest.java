@@ -0,0 +1,155 @@
+package com.example.movieapp.service.impl;
+
+import com.example.movieapp.model.Actor;
+import com.example.movieapp.model.CatalogImportFormat;
+import com.example.movieapp.model.CatalogImportResult;
+import com.example.movieapp.model.Movie;
+import com.example.movieapp.model.MovieGenre;
+import com.example.movieapp.repository.ActorRepository;
+import com.example.movieapp.repository.MovieGenreRepository;
+import com.example.movieapp.repository.MovieRepository;
+import com.example.movieapp.service.GenreStatisticsService;
+import com.example.movieapp.service.MovieSearchService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.persistence.EntityManager;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.sql.init.mode=never"
+})
+class CatalogImportServiceImplTest {
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private MovieRepository movieRepository;
+
+    @Autowired
+    private ActorRepository actorRepository;
+
+    @Autowired
+    private MovieGenreRepository movieGenreRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final MovieSearchService movieSearchService = mock(MovieSearchService.class);
+
+    private final GenreStatisticsService genreStatisticsService = mock(GenreStatisticsService.class);
+
+    @Test
+    @DisplayName("Should import CSV rows, creating each genre and actor once across chunks")
+    void importCsvDeduplicatesGenresAndActors() {
+        this.actorRepository.save(new Actor("Existing Actor"));
+        String csv = "name,price,genre,actors,description\r\n" +
+                "First,9.99,Drama,Existing Actor|New Actor,\"Long, with a comma\"\r\n" +
+                "Second,4.50,Drama,New Actor|New Actor,\"Two\nlines and \"\"quotes\"\"\"\r\n" +
+                "\r\n" +
+                ",3.00,Drama,,no name\r\n" +
+                "Third,free,Comedy,,bad price\r\n" +
+                "Fourth,1,Comedy,Other Actor,\r\n";
+
+        CatalogImportResult result = service(2).importCatalog(stream(csv), CatalogImportFormat.CSV);
+
+        assertNull(result.getFailure());
+        assertEquals(5, result.getRows());
+        assertEquals(3, result.getMovies());
+        assertEquals(2, result.getSkipped());
+        assertEquals(2, result.getActors());
+        assertEquals(2, result.getMovieGenres());
+        assertEquals(3, this.actorRepository.count());
+        assertEquals(2, this.movieGenreRepository.count());
+
+        List<Movie> movies = this.movieRepository.findAll().stream()
+                .sorted(Comparator.comparing(Movie::getId)).collect(Collectors.toList());
+        assertEquals("Long, with a comma", movies.get(0).getDescription());
+        assertEquals(List.of("Existing Actor", "New Actor"),
+                movies.get(0).getActors().stream().map(Actor::getName).collect(Collectors.toList()));
+        assertEquals("Two\nlines and \"quotes\"", movies.get(1).getDescription());
+        assertEquals(1, movies.get(1).getActors().size());
+        assertEquals(movies.get(0).getMovieGenre().getId(), movies.get(1).getMovieGenre().getId());
+        verify(this.movieSearchService).rebuild();
+        verify(this.genreStatisticsService).reload();
+    }
+
+    @Test
+    @DisplayName("Should import a JSON array of movies")
+    void importJson() {
+        this.movieGenreRepository.save(new MovieGenre("Drama"));
+        String json = "[{\"name\":\"First\",\"price\":9.99,\"genre\":\"Drama\",\"actors\":[\"A\",\"B\"]}," +
+                "{\"name\":\"Second\",\"price\":\"2\",\"imageUrl\":\"second.jpg\",\"actors\":\"B|C\"}," +
+                "{\"price\":1}]";
+
+        CatalogImportResult result = service(1000).importCatalog(stream(json), CatalogImportFormat.JSON);
+
+        assertNull(result.getFailure());
+        assertEquals(2, result.getMovies());
+        assertEquals(1, result.getSkipped());
+        assertEquals(3, result.getActors());
+        assertEquals(0, result.getMovieGenres());
+        assertEquals(1, this.movieGenreRepository.count());
+    }
+
+    @Test
+    @DisplayName("Should stop at unreadable input and report it, keeping the rows before it")
+    void importReportsFailure() {
+        String json = "[{\"name\":\"First\",\"price\":1},{\"name\":";
+
+        CatalogImportResult result = service(1).importCatalog(stream(json), CatalogImportFormat.JSON);
+
+        assertNotNull(result.getFailure());
+        assertEquals(1, result.getMovies());
+        assertEquals(1, this.movieRepository.count());
+    }
+
+    @Test
+    @DisplayName("Should insert a chunk in batches instead of one statement per row")
+    void importBatchesInserts() {
+        StringBuilder csv = new StringBuilder("name,price,genre,actors\n");
+        for (int i = 0; i < 300; i++)
+            csv.append("Movie ").append(i).append(",1.5,Genre ").append(i % 3)
+                    .append(",Actor ").append(i).append("|Actor ").append(i + 1).append('\n');
+        Statistics statistics = this.entityManager.getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        CatalogImportResult result = service(1000).importCatalog(stream(csv.toString()), CatalogImportFormat.CSV);
+        this.entityManager.flush();
+
+        assertEquals(300, result.getMovies());
+        assertEquals(301, result.getActors());
+        assertEquals(300, statistics.getEntityInsertCount() - 301 - 3);
+        // two loads, a sequence call per 50 ids and a prepared statement per insert batch
+        assertTrue(statistics.getPrepareStatementCount() < 60,
+                "statements: " + statistics.getPrepareStatementCount());
+    }
+
+    private CatalogImportServiceImpl service(int chunkSize) {
+        return new CatalogImportServiceImpl(this.movieRepository, this.actorRepository, this.movieGenreRepository,
+                this.movieSearchService, this.genreStatisticsService, this.transactionManager,
+                new SimpleMeterRegistry(), chunkSize);
+    }
+
+    private static ByteArrayInputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,156 @@
+package com.example.movieapp.service.impl;
+
+import com.example.movieapp.model.IdempotencyRecord;
+import com.example.movieapp.model.ShoppingCart;
+import com.example.movieapp.model.exceptions.ShoppingCartEmptyException;
+import com.example.movieapp.repository.IdempotencyRecordRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CheckoutIdempotencyStoreTest {
+
+    @Mock
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    private CheckoutIdempotencyStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new CheckoutIdempotencyStore(idempotencyRecordRepository);
+    }
+
+    @Test
+    @DisplayName("Should answer a repeated key from memory without placing another order or reading the database")
+    void executeWhenKeyRepeatedReturnsFirstResult() {
+        when(idempotencyRecordRepository.findById("user:a")).thenReturn(Optional.empty());
+        AtomicInteger placed = new AtomicInteger();
+
+        assertEquals(7L, store.execute("user:a", () -> 7L + placed.getAndIncrement()));
+        assertEquals(7L, store.execute("user:a", () -> 7L + placed.getAndIncrement()));
+
+        assertEquals(1, placed.get());
+        verify(idempotencyRecordRepository, times(1)).findById("user:a");
+    }
+
+    @Test
+    @DisplayName("Should coalesce concurrent duplicates into one in-flight order placement")
+    void executeWhenDuplicatesAreConcurrentPlacesOneOrder() throws Exception {
+        when(idempotencyRecordRepository.findById(anyString())).thenReturn(Optional.empty());
+        AtomicInteger placed = new AtomicInteger();
+        int threads = 32;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Long>> results = new ArrayList<>();
+        for (int i = 0; i < threads; i++)
+            results.add(executor.submit(() -> {
+                start.await();
+                return store.execute("user:a", () -> {
+                    placed.incrementAndGet();
+                    try {
+                        Thread.sleep(100);
+                    } catch (InterruptedException exception) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return 7L;
+                });
+            }));
+        start.countDown();
+
+        for (Future<Long> result : results)
+            assertEquals(7L, result.get(10, TimeUnit.SECONDS));
+        executor.shutdown();
+        assertEquals(1, placed.get());
+    }
+
+    @Test
+    @DisplayName("Should return the order recorded in the database for a key seen before a restart")
+    void executeWhenKeyPersistedReturnsRecordedOrder() {
+        when(idempotencyRecordRepository.findById("user:a")).thenReturn(Optional.of(new IdempotencyRecord("user:a", 7L)));
+
+        assertEquals(7L, store.execute("user:a", () -> {
+            throw new AssertionError("order placed twice");
+        }));
+    }
+
+    @Test
+    @DisplayName("Should return the other node's order when both placed one for the same key")
+    void executeWhenAnotherNodeWonReturnsItsOrder() {
+        when(idempotencyRecordRepository.findById("user:a"))
+                .thenReturn(Optional.empty(), Optional.of(new IdempotencyRecord("user:a", 9L)));
+
+        assertEquals(9L, store.execute("user:a", () -> {
+            throw new DataIntegrityViolationException("duplicate key");
+        }));
+    }
+
+    @Test
+    @DisplayName("Should return the other node's order when its checkout finished the cart first")
+    void executeWhenAnotherNodeFinishedTheCartReturnsItsOrder() {
+        when(idempotencyRecordRepository.findById("user:a"))
+                .thenReturn(Optional.empty(), Optional.of(new IdempotencyRecord("user:a", 9L)));
+
+        assertEquals(9L, store.execute("user:a", () -> {
+            throw new ObjectOptimisticLockingFailureException(ShoppingCart.class, 1L);
+        }));
+    }
+
+    @Test
+    @DisplayName("Should rethrow a cart version conflict that no order for the key explains")
+    void executeWhenCartChangedWithoutOrderRethrows() {
+        when(idempotencyRecordRepository.findById("user:a")).thenReturn(Optional.empty());
+
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> store.execute("user:a", () -> {
+            throw new ObjectOptimisticLockingFailureException(ShoppingCart.class, 1L);
+        }));
+    }
+
+    @Test
+    @DisplayName("Should not remember a failed attempt")
+    void executeWhenPlacementFailsAllowsRetry() {
+        when(idempotencyRecordRepository.findById("user:a")).thenReturn(Optional.empty());
+
+        assertThrows(ShoppingCartEmptyException.class, () -> store.execute("user:a", () -> {
+            throw new ShoppingCartEmptyException("user");
+        }));
+
+        assertEquals(7L, store.execute("user:a", () -> 7L));
+    }
+
+    @Test
+    @DisplayName("Should evict keys older than the TTL from memory and the database")
+    void evictExpiredDropsOldKeys() {
+        when(idempotencyRecordRepository.findById("user:a")).thenReturn(Optional.empty());
+        store.execute("user:a", () -> 7L);
+
+        store.evictExpired(LocalDateTime.now());
+        assertEquals(1, store.size());
+
+        LocalDateTime later = LocalDateTime.now().plus(CheckoutIdempotencyStore.TTL).plusMinutes(1);
+        store.evictExpired(later);
+        assertEquals(0, store.size());
+        verify(idempotencyRecordRepository).deleteCreatedBefore(later.minus(CheckoutIdempotencyStore.TTL));
+    }
+}
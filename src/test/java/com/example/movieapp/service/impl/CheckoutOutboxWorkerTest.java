@@ -0,0 +1,185 @@
+package com.example.movieapp.service.impl;
+
+import com.example.movieapp.model.*;
+import com.example.movieapp.repository.CheckoutOrderRepository;
+import com.example.movieapp.repository.OutboxEventRepository;
+import com.example.movieapp.repository.ShoppingCartRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CheckoutOutboxWorkerTest {
+
+    private static final long LATENCY_MILLIS = 50;
+
+    @Mock
+    private OutboxEventRepository outboxEventRepository;
+
+    @Mock
+    private CheckoutOrderRepository checkoutOrderRepository;
+
+    @Mock
+    private ShoppingCartRepository shoppingCartRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private CheckoutOrder order;
+
+    @BeforeEach
+    void setUp() {
+        User user = new User("user", "password", "email@email.com", Role.ROLE_USER);
+        ShoppingCart shoppingCart = new ShoppingCart(user);
+        shoppingCart.setId(1L);
+        order = new CheckoutOrder(user, shoppingCart, 2550, ChargeRequest.Currency.EUR);
+        order.setId(7L);
+    }
+
+    private CheckoutOutboxWorker worker(Executor executor) {
+        return new CheckoutOutboxWorker(outboxEventRepository, checkoutOrderRepository, shoppingCartRepository,
+                new StubPaymentGateway(LATENCY_MILLIS), transactionManager, executor);
+    }
+
+    private void givenClaimedEvent(String stripeToken, int attempts) {
+        OutboxEvent event = new OutboxEvent(7L, stripeToken, "email@email.com");
+        event.setId(3L);
+        event.setAttempts(attempts);
+        when(outboxEventRepository.findById(3L)).thenReturn(Optional.of(event));
+        when(checkoutOrderRepository.findById(7L)).thenReturn(Optional.of(order));
+    }
+
+    @Test
+    @DisplayName("Should mark the order paid and remove the outbox event after a successful charge")
+    void processMarksOrderPaid() {
+        givenClaimedEvent("tok_visa", 1);
+
+        worker(Runnable::run).process(3L);
+
+        assertEquals(OrderStatus.PAID, order.getStatus());
+        assertNotNull(order.getChargeId());
+        verify(outboxEventRepository).deleteById(3L);
+        verify(shoppingCartRepository, never()).reopenCart(any());
+    }
+
+    @Test
+    @DisplayName("Should fail the order and give the cart back when the card is declined")
+    void processWhenDeclinedFailsOrderAndReopensCart() {
+        givenClaimedEvent(StubPaymentGateway.DECLINED_TOKEN, 1);
+
+        worker(Runnable::run).process(3L);
+
+        assertEquals(OrderStatus.FAILED, order.getStatus());
+        assertNull(order.getChargeId());
+        verify(shoppingCartRepository).reopenCart(1L);
+        verify(outboxEventRepository).deleteById(3L);
+    }
+
+    @Test
+    @DisplayName("Should reschedule the event when the payment provider is unavailable")
+    void processWhenUnavailableReschedules() {
+        givenClaimedEvent(StubPaymentGateway.UNAVAILABLE_TOKEN, 1);
+
+        worker(Runnable::run).process(3L);
+
+        assertEquals(OrderStatus.PENDING, order.getStatus());
+        verify(outboxEventRepository).reschedule(eq(3L), any(LocalDateTime.class));
+        verify(outboxEventRepository, never()).deleteById(any());
+    }
+
+    @Test
+    @DisplayName("Should keep the cart closed and reconcile later when the provider never answered on the last attempt")
+    void processWhenUnavailableOnLastAttemptMarksPaymentUnknown() {
+        givenClaimedEvent(StubPaymentGateway.UNAVAILABLE_TOKEN, CheckoutOutboxWorker.MAX_ATTEMPTS);
+
+        LocalDateTime before = LocalDateTime.now();
+        worker(Runnable::run).process(3L);
+
+        assertEquals(OrderStatus.PAYMENT_UNKNOWN, order.getStatus());
+        verify(outboxEventRepository).reschedule(eq(3L),
+                argThat(at -> !at.isBefore(before.plus(CheckoutOutboxWorker.RECONCILE_INTERVAL))));
+        verify(shoppingCartRepository, never()).reopenCart(any());
+        verify(outboxEventRepository, never()).deleteById(any());
+    }
+
+    @Test
+    @DisplayName("Should mark an unknown payment paid when the replayed charge finds it")
+    void processReconcilesUnknownPaymentAsPaid() {
+        order.setStatus(OrderStatus.PAYMENT_UNKNOWN);
+        givenClaimedEvent("tok_visa", CheckoutOutboxWorker.MAX_ATTEMPTS + 1);
+
+        worker(Runnable::run).process(3L);
+
+        assertEquals(OrderStatus.PAID, order.getStatus());
+        assertNull(order.getFailureReason());
+        verify(outboxEventRepository).deleteById(3L);
+        verify(shoppingCartRepository, never()).reopenCart(any());
+    }
+
+    @Test
+    @DisplayName("Should give the cart back only when reconciliation gets a definite decline")
+    void processReconcilesUnknownPaymentAsDeclined() {
+        order.setStatus(OrderStatus.PAYMENT_UNKNOWN);
+        givenClaimedEvent(StubPaymentGateway.DECLINED_TOKEN, CheckoutOutboxWorker.MAX_ATTEMPTS + 1);
+
+        worker(Runnable::run).process(3L);
+
+        assertEquals(OrderStatus.FAILED, order.getStatus());
+        verify(shoppingCartRepository).reopenCart(1L);
+    }
+
+    @Test
+    @DisplayName("Should stop replaying an unknown payment once the idempotency key may have expired")
+    void processStopsReconcilingAfterWindow() {
+        order.setStatus(OrderStatus.PAYMENT_UNKNOWN);
+        order.setDateCreated(LocalDateTime.now().minus(CheckoutOutboxWorker.RECONCILE_WINDOW).minusMinutes(1));
+        givenClaimedEvent(StubPaymentGateway.UNAVAILABLE_TOKEN, 40);
+
+        worker(Runnable::run).process(3L);
+
+        assertEquals(OrderStatus.PAYMENT_UNKNOWN, order.getStatus());
+        verify(outboxEventRepository).deleteById(3L);
+        verify(outboxEventRepository, never()).reschedule(any(), any());
+        verify(shoppingCartRepository, never()).reopenCart(any());
+    }
+
+    @Test
+    @DisplayName("Should hand claimed events to the executor instead of charging on the polling thread")
+    void drainSubmitsClaimedEventsToExecutor() {
+        Executor executor = mock(Executor.class);
+        when(outboxEventRepository.findDueIds(any(LocalDateTime.class), any(Pageable.class))).thenReturn(List.of(3L, 4L));
+        when(outboxEventRepository.claim(eq(3L), any(), any())).thenReturn(1);
+        when(outboxEventRepository.claim(eq(4L), any(), any())).thenReturn(0);
+
+        worker(executor).drain();
+
+        verify(executor, times(1)).execute(any(Runnable.class));
+        verify(outboxEventRepository, never()).findById(any());
+    }
+
+    @Test
+    @DisplayName("Should back off exponentially up to five minutes")
+    void backoffIsExponentialAndCapped() {
+        assertEquals(Duration.ofSeconds(2), CheckoutOutboxWorker.backoff(1));
+        assertEquals(Duration.ofSeconds(16), CheckoutOutboxWorker.backoff(4));
+        assertEquals(Duration.ofMinutes(5), CheckoutOutboxWorker.backoff(20));
+    }
+}
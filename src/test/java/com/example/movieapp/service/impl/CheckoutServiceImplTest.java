@@ -0,0 +1,151 @@
+package com.example.movieapp.service.impl;
+
+import com.example.movieapp.model.*;
+import com.example.movieapp.model.exceptions.CheckoutOrderNotFoundException;
+import com.example.movieapp.model.exceptions.ShoppingCartEmptyException;
+import com.example.movieapp.repository.CheckoutOrderRepository;
+import com.example.movieapp.repository.IdempotencyRecordRepository;
+import com.example.movieapp.repository.OutboxEventRepository;
+import com.example.movieapp.repository.ShoppingCartRepository;
+import com.example.movieapp.service.ShoppingCartService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CheckoutServiceImplTest {
+
+    @Mock
+    private ShoppingCartService shoppingCartService;
+
+    @Mock
+    private ShoppingCartRepository shoppingCartRepository;
+
+    @Mock
+    private CheckoutOrderRepository checkoutOrderRepository;
+
+    @Mock
+    private OutboxEventRepository outboxEventRepository;
+
+    @Mock
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Mock
+    private CheckoutIdempotencyStore idempotencyStore;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private CheckoutServiceImpl checkoutService;
+
+    private ShoppingCart shoppingCart;
+    private ChargeRequest chargeRequest;
+
+    @BeforeEach
+    void setUp() {
+        User user = new User("user", "password", "email@email.com", Role.ROLE_USER);
+        shoppingCart = new ShoppingCart(user);
+        shoppingCart.setId(1L);
+        shoppingCart.setVersion(3L);
+        chargeRequest = new ChargeRequest();
+        chargeRequest.setAmount(1);
+        chargeRequest.setStripeToken("tok_visa");
+        chargeRequest.setStripeEmail("email@email.com");
+        when(shoppingCartService.getActiveShoppingCart("user")).thenReturn(shoppingCart);
+    }
+
+    @Test
+    @DisplayName("Should finish the cart and write the order and its outbox event without charging")
+    void placeOrderWritesOrderAndOutboxEvent() {
+        when(shoppingCartService.getPrice(1L)).thenReturn(25.5);
+        when(shoppingCartRepository.finishCart(1L, 3L)).thenReturn(1);
+        when(checkoutOrderRepository.save(any(CheckoutOrder.class))).thenAnswer(invocation -> {
+            CheckoutOrder order = invocation.getArgument(0);
+            order.setId(7L);
+            return order;
+        });
+
+        assertEquals(7L, checkoutService.placeOrder("user", chargeRequest));
+
+        ArgumentCaptor<CheckoutOrder> order = ArgumentCaptor.forClass(CheckoutOrder.class);
+        verify(checkoutOrderRepository).save(order.capture());
+        assertEquals(OrderStatus.PENDING, order.getValue().getStatus());
+        assertEquals(2550, order.getValue().getAmount());
+        ArgumentCaptor<OutboxEvent> event = ArgumentCaptor.forClass(OutboxEvent.class);
+        verify(outboxEventRepository).save(event.capture());
+        assertEquals(7L, event.getValue().getOrderId());
+        assertEquals("tok_visa", event.getValue().getStripeToken());
+        verifyNoInteractions(idempotencyStore, idempotencyRecordRepository);
+    }
+
+    @Test
+    @DisplayName("Should place a keyed order through the idempotency store and record the key with the order")
+    @SuppressWarnings("unchecked")
+    void placeOrderWithIdempotencyKeyRecordsKey() {
+        chargeRequest.setIdempotencyKey("key-1");
+        when(shoppingCartService.getPrice(1L)).thenReturn(10.0);
+        when(shoppingCartRepository.finishCart(1L, 3L)).thenReturn(1);
+        when(checkoutOrderRepository.save(any(CheckoutOrder.class))).thenAnswer(invocation -> {
+            CheckoutOrder order = invocation.getArgument(0);
+            order.setId(7L);
+            return order;
+        });
+        when(idempotencyStore.execute(eq("user:key-1"), any())).thenAnswer(invocation ->
+                ((Supplier<Long>) invocation.getArgument(1)).get());
+
+        assertEquals(7L, checkoutService.placeOrder("user", chargeRequest));
+
+        ArgumentCaptor<IdempotencyRecord> record = ArgumentCaptor.forClass(IdempotencyRecord.class);
+        verify(idempotencyRecordRepository).save(record.capture());
+        assertEquals("user:key-1", record.getValue().getIdempotencyKey());
+        assertEquals(7L, record.getValue().getOrderId());
+    }
+
+    @Test
+    @DisplayName("Should not place an order for an empty cart")
+    void placeOrderWhenCartIsEmptyThenThrowException() {
+        when(shoppingCartService.getPrice(1L)).thenReturn(0.0);
+
+        assertThrows(ShoppingCartEmptyException.class, () -> checkoutService.placeOrder("user", chargeRequest));
+
+        verify(shoppingCartRepository, never()).finishCart(any(), any());
+        verifyNoInteractions(checkoutOrderRepository, outboxEventRepository);
+    }
+
+    @Test
+    @DisplayName("Should not place an order when the cart changed after it was priced")
+    void placeOrderWhenCartChangedThenThrowException() {
+        when(shoppingCartService.getPrice(1L)).thenReturn(10.0);
+        when(shoppingCartRepository.finishCart(1L, 3L)).thenReturn(0);
+
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> checkoutService.placeOrder("user", chargeRequest));
+
+        verifyNoInteractions(checkoutOrderRepository, outboxEventRepository);
+    }
+
+    @Test
+    @DisplayName("Should not show an order to another user")
+    void getOrderOfAnotherUserThenThrowException() {
+        reset(shoppingCartService);
+        when(checkoutOrderRepository.findByIdAndUserUsername(7L, "other")).thenReturn(Optional.empty());
+
+        assertThrows(CheckoutOrderNotFoundException.class, () -> checkoutService.getOrder(7L, "other"));
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.movieapp.service.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+class CircuitBreakerTest {
+
+    private final AtomicLong clock = new AtomicLong();
+    private CircuitBreaker circuitBreaker;
+
+    @BeforeEach
+    void setUp() {
+        circuitBreaker = new CircuitBreaker(10, 50, Duration.ofSeconds(30), 2, clock::get);
+    }
+
+    private void record(boolean success, int times) {
+        for (int i = 0; i < times; i++)
+            circuitBreaker.onResult(circuitBreaker.tryAcquire(), success);
+    }
+
+    @Test
+    @DisplayName("Should stay closed until half of the window is filled")
+    void staysClosedBelowMinimumCalls() {
+        record(false, 4);
+
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    @Test
+    @DisplayName("Should open at the failure rate threshold and reject calls while open")
+    void opensAtFailureRateThreshold() {
+        record(true, 3);
+        record(false, 3);
+
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertEquals(CircuitBreaker.REJECTED, circuitBreaker.tryAcquire());
+    }
+
+    @Test
+    @DisplayName("Should close again after the half-open probes succeed")
+    void closesAfterSuccessfulProbes() {
+        record(false, 5);
+        clock.addAndGet(Duration.ofSeconds(30).toNanos());
+
+        long first = circuitBreaker.tryAcquire();
+        long second = circuitBreaker.tryAcquire();
+        assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+        assertEquals(CircuitBreaker.REJECTED, circuitBreaker.tryAcquire());
+
+        circuitBreaker.onResult(first, true);
+        circuitBreaker.onResult(second, true);
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    @Test
+    @DisplayName("Should open again when a half-open probe fails")
+    void reopensWhenProbeFails() {
+        record(false, 5);
+        clock.addAndGet(Duration.ofSeconds(31).toNanos());
+
+        circuitBreaker.onResult(circuitBreaker.tryAcquire(), false);
+
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertEquals(CircuitBreaker.REJECTED, circuitBreaker.tryAcquire());
+    }
+
+    @Test
+    @DisplayName("Should ignore the outcome of calls started before the last state change")
+    void ignoresStaleOutcomes() {
+        long stale = circuitBreaker.tryAcquire();
+        record(false, 5);
+        clock.addAndGet(Duration.ofSeconds(30).toNanos());
+        long probe = circuitBreaker.tryAcquire();
+        assertNotEquals(CircuitBreaker.REJECTED, probe);
+
+        circuitBreaker.onResult(stale, false);
+
+        assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+    }
+}
@@ -0,0 +1,182 @@
+package com.example.movieapp.service.impl;
+
+import com.example.movieapp.model.GenreStatistics;
+import com.example.movieapp.model.exceptions.MovieGenreNotFound;
+import com.example.movieapp.repository.MovieGenreRepository;
+import com.example.movieapp.repository.MovieRepository;
+import com.example.movieapp.service.CacheInvalidationService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class GenreStatisticsServiceImplTest {
+
+    @Mock
+    private MovieRepository movieRepository;
+
+    @Mock
+    private MovieGenreRepository movieGenreRepository;
+
+    @Mock
+    private CacheInvalidationService cacheInvalidationService;
+
+    @InjectMocks
+    private GenreStatisticsServiceImpl genreStatisticsService;
+
+    @Test
+    @DisplayName("Should serve counts from the maintained counters after the initial aggregate load")
+    void countersAreMaintainedWithoutQueries() {
+        when(movieRepository.findGenreStatistics()).thenReturn(List.of(new GenreStatistics(1L, 2, 10.0, 15.0, 20.0)));
+        genreStatisticsService.reload();
+
+        genreStatisticsService.movieAdded(1L, 12.0);
+        genreStatisticsService.movieRemoved(1L, 15.0);
+        genreStatisticsService.movieAdded(1L, 30.0);
+        GenreStatistics statistics = genreStatisticsService.getStatistics(1L);
+
+        assertEquals(3, statistics.getCount());
+        assertEquals(10.0, statistics.getMinPrice());
+        assertEquals(30.0, statistics.getMaxPrice());
+        assertEquals((10.0 + 20.0 + 12.0 + 30.0 - 15.0) / 3, statistics.getAvgPrice(), 1e-9);
+        verify(movieRepository, times(1)).findGenreStatistics();
+        verifyNoMoreInteractions(movieRepository);
+    }
+
+    @Test
+    @DisplayName("Should reload a genre from the aggregate query after its cheapest movie is removed")
+    void removingAnExtremeReloadsTheGenre() {
+        when(movieRepository.findGenreStatistics()).thenReturn(List.of(new GenreStatistics(1L, 3, 10.0, 15.0, 20.0)));
+        when(movieRepository.findGenreStatistics(1L)).thenReturn(Optional.of(new GenreStatistics(1L, 2, 15.0, 17.5, 20.0)));
+        genreStatisticsService.reload();
+
+        genreStatisticsService.movieRemoved(1L, 10.0);
+        GenreStatistics statistics = genreStatisticsService.getStatistics(1L);
+
+        assertEquals(2, statistics.getCount());
+        assertEquals(15.0, statistics.getMinPrice());
+        verify(movieRepository, times(1)).findGenreStatistics(1L);
+    }
+
+    @Test
+    @DisplayName("Should return empty statistics for an existing genre without movies")
+    void emptyGenreHasZeroCount() {
+        when(movieRepository.findGenreStatistics(1L)).thenReturn(Optional.empty());
+        when(movieGenreRepository.existsById(1L)).thenReturn(true);
+
+        GenreStatistics statistics = genreStatisticsService.getStatistics(1L);
+
+        assertEquals(0, statistics.getCount());
+        assertNull(statistics.getAvgPrice());
+    }
+
+    @Test
+    @DisplayName("Should throw an exception when the genre does not exist")
+    void unknownGenreThrowsException() {
+        when(movieRepository.findGenreStatistics(1L)).thenReturn(Optional.empty());
+        when(movieGenreRepository.existsById(1L)).thenReturn(false);
+
+        assertThrows(MovieGenreNotFound.class, () -> genreStatisticsService.getStatistics(1L));
+    }
+
+    @Test
+    @DisplayName("Should load every genre missing a counter with one aggregate query when listing all statistics")
+    void allStatisticsLoadsMissingGenres() {
+        when(movieRepository.findGenreStatistics()).thenReturn(List.of(new GenreStatistics(1L, 2, 10.0, 15.0, 20.0)));
+        when(movieGenreRepository.findAllIds()).thenReturn(List.of(1L, 2L, 3L));
+        when(movieRepository.findGenreStatisticsByIdIn(List.of(2L, 3L)))
+                .thenReturn(List.of(new GenreStatistics(2L, 1, 5.0, 5.0, 5.0)));
+        genreStatisticsService.reload();
+
+        Map<Long, GenreStatistics> statistics = genreStatisticsService.getAllStatistics();
+
+        assertEquals(2, statistics.get(1L).getCount());
+        assertEquals(1, statistics.get(2L).getCount());
+        assertEquals(0, statistics.get(3L).getCount());
+        genreStatisticsService.getAllStatistics();
+        verify(movieRepository, times(1)).findGenreStatisticsByIdIn(anyCollection());
+    }
+
+    @Test
+    @DisplayName("Should reload a dropped counter after an invalidation")
+    void invalidatedGenreIsReloadedOnNextListing() {
+        when(movieRepository.findGenreStatistics()).thenReturn(List.of(new GenreStatistics(1L, 2, 10.0, 15.0, 20.0)));
+        when(movieGenreRepository.findAllIds()).thenReturn(List.of(1L));
+        when(movieRepository.findGenreStatisticsByIdIn(List.of(1L)))
+                .thenReturn(List.of(new GenreStatistics(1L, 4, 10.0, 15.0, 20.0)));
+        genreStatisticsService.reload();
+
+        genreStatisticsService.invalidate(1L);
+
+        assertEquals(4, genreStatisticsService.getAllStatistics().get(1L).getCount());
+    }
+
+    @Test
+    @DisplayName("Should keep serving the counter until the invalidating transaction commits")
+    void invalidationInTransactionWaitsForCommit() {
+        when(movieRepository.findGenreStatistics()).thenReturn(List.of(new GenreStatistics(1L, 2, 10.0, 15.0, 20.0)));
+        when(movieRepository.findGenreStatistics(1L)).thenReturn(Optional.of(new GenreStatistics(1L, 4, 10.0, 15.0, 20.0)));
+        genreStatisticsService.reload();
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            genreStatisticsService.invalidate(1L);
+            assertEquals(2, genreStatisticsService.getStatistics(1L).getCount());
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertEquals(4, genreStatisticsService.getStatistics(1L).getCount());
+        verify(cacheInvalidationService).publish(GenreStatisticsServiceImpl.REGION, 1L);
+    }
+
+    @Test
+    @DisplayName("Should apply added and removed movies only when their transaction commits")
+    void addedAndRemovedMoviesWaitForCommit() {
+        when(movieRepository.findGenreStatistics()).thenReturn(List.of(new GenreStatistics(1L, 2, 10.0, 15.0, 20.0)));
+        genreStatisticsService.reload();
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            genreStatisticsService.movieAdded(1L, 12.0);
+            genreStatisticsService.movieRemoved(1L, 10.0);
+            assertEquals(2, genreStatisticsService.getStatistics(1L).getCount());
+
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        GenreStatistics statistics = genreStatisticsService.getStatistics(1L);
+        assertEquals(2, statistics.getCount());
+        assertEquals(10.0, statistics.getMinPrice());
+        verify(movieRepository, never()).findGenreStatistics(1L);
+    }
+
+    @Test
+    @DisplayName("Should create the counter of a genre that gets its first movie")
+    void movieAddedToGenreWithoutCounterLoadsIt() {
+        when(movieRepository.findGenreStatistics(5L)).thenReturn(Optional.of(new GenreStatistics(5L, 1, 7.0, 7.0, 7.0)));
+
+        genreStatisticsService.movieAdded(5L, 7.0);
+        GenreStatistics statistics = genreStatisticsService.getStatistics(5L);
+
+        assertEquals(1, statistics.getCount());
+        verify(movieRepository, times(1)).findGenreStatistics(5L);
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.movieapp.service.impl;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoginAttemptLimiterTest {
+
+    private final AtomicLong clock = new AtomicLong(1_000_000);
+    private final LoginAttemptLimiter limiter = new LoginAttemptLimiter(3, 5, 300, clock::get);
+
+    @Test
+    @DisplayName("Should block a username after the allowed number of failures")
+    void blocksUsernameAfterLimit() {
+        for (int i = 0; i < 3; i++) {
+            assertTrue(limiter.isAllowed("user", "10.0.0.1"));
+            limiter.recordFailure("user", "10.0.0.1");
+        }
+
+        assertFalse(limiter.isAllowed("user", "10.0.0.2"));
+        assertTrue(limiter.isAllowed("other", "10.0.0.2"));
+    }
+
+    @Test
+    @DisplayName("Should block an address that fails for many usernames")
+    void blocksAddressAfterLimit() {
+        for (int i = 0; i < 5; i++)
+            limiter.recordFailure("user" + i, "10.0.0.1");
+
+        assertFalse(limiter.isAllowed("fresh", "10.0.0.1"));
+        assertTrue(limiter.isAllowed("fresh", "10.0.0.2"));
+    }
+
+    @Test
+    @DisplayName("Should forget failures once they slide out of the window")
+    void failuresExpireWithTheWindow() {
+        for (int i = 0; i < 3; i++)
+            limiter.recordFailure("user", "10.0.0.1");
+
+        clock.addAndGet(TimeUnit.SECONDS.toMillis(301));
+
+        assertTrue(limiter.isAllowed("user", "10.0.0.1"));
+        limiter.evictIdle();
+        assertEquals(0, limiter.trackedKeys());
+    }
+
+    @Test
+    @DisplayName("Should clear a username's failures after a successful login")
+    void successClearsUsernameFailures() {
+        limiter.recordFailure("user", "10.0.0.1");
+        limiter.recordFailure("user", "10.0.0.1");
+        limiter.recordSuccess("user");
+        limiter.recordFailure("user", "10.0.0.1");
+        limiter.recordFailure("user", "10.0.0.1");
+
+        assertTrue(limiter.isAllowed("user", null));
+    }
+
+    @Test
+    @DisplayName("Should count every concurrent failure exactly once")
+    void countsConcurrentFailures() throws InterruptedException {
+        SlidingWindowCounter counter = new SlidingWindowCounter(10, 30_000);
+        int threads = 8;
+        int perThread = 10_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++)
+            executor.execute(() -> {
+                for (int i = 0; i < perThread; i++)
+                    counter.increment(clock.get());
+                done.countDown();
+            });
+
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        executor.shutdown();
+        assertEquals((long) threads * perThread, counter.count(clock.get()));
+    }
+}
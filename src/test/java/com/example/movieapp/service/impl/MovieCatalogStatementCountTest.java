@@ -0,0 +1,85 @@
+package com.example.movieapp.service.impl;
+
+import com.example.movieapp.model.Actor;
+import com.example.movieapp.model.Movie;
+import com.example.movieapp.model.MovieGenre;
+import com.example.movieapp.model.MoviePage;
+import com.example.movieapp.model.MovieSortKey;
+import com.example.movieapp.service.GenreStatisticsService;
+import com.example.movieapp.service.MovieSearchService;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.sql.init.mode=never"
+})
+@Import(MovieServiceImpl.class)
+class MovieCatalogStatementCountTest {
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private MovieServiceImpl movieService;
+
+    @MockBean
+    private MovieSearchService movieSearchService;
+
+    @MockBean
+    private GenreStatisticsService genreStatisticsService;
+
+    @Test
+    @DisplayName("Should render a catalog page with the same number of statements for any catalog size")
+    void catalogPageStatementCountDoesNotGrowWithCatalogSize() {
+        seedCatalog(3);
+        long smallCatalog = statementsToRenderFirstPage();
+
+        seedCatalog(60);
+        long largeCatalog = statementsToRenderFirstPage();
+
+        assertEquals(2, smallCatalog);
+        assertEquals(smallCatalog, largeCatalog);
+    }
+
+    private long statementsToRenderFirstPage() {
+        this.entityManager.flush();
+        this.entityManager.clear();
+        Statistics statistics = this.entityManager.getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        MoviePage page = this.movieService.getMoviePage(MovieSortKey.ID, null, null, 50);
+        // touch everything list.html renders for a card
+        page.getMovies().forEach(movie -> {
+            movie.getMovieGenre().getName();
+            movie.getActors().forEach(Actor::getName);
+        });
+        return statistics.getPrepareStatementCount();
+    }
+
+    private void seedCatalog(int movies) {
+        MovieGenre movieGenre = new MovieGenre("Genre " + movies);
+        this.entityManager.persist(movieGenre);
+        for (int i = 0; i < movies; i++) {
+            Actor lead = new Actor("Lead " + movies + "-" + i);
+            Actor support = new Actor("Support " + movies + "-" + i);
+            this.entityManager.persist(lead);
+            this.entityManager.persist(support);
+            this.entityManager.persist(new Movie("Movie " + i, "Description", 10.0, movieGenre, "image.jpg",
+                    List.of(lead, support)));
+        }
+    }
+}
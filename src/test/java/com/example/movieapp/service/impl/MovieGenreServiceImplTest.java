@@ -3,9 +3,11 @@ package com.example.movieapp.service.impl;
 import com.example.movieapp.model.MovieGenre;
 import com.example.movieapp.model.exceptions.MovieGenreNotFound;
 import com.example.movieapp.repository.MovieGenreRepository;
+import com.example.movieapp.service.GenreStatisticsService;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
@@ -14,6 +16,8 @@ import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -22,6 +26,9 @@ class MovieGenreServiceImplTest {
     @Mock
     private MovieGenreRepository movieGenreRepository;
 
+    @Mock
+    private GenreStatisticsService genreStatisticsService;
+
     @InjectMocks
     private MovieGenreServiceImpl movieGenreService;
 
@@ -44,6 +51,7 @@ class MovieGenreServiceImplTest {
         when(movieGenreRepository.findById(movieGenreId)).thenReturn(Optional.of(new MovieGenre("Action")));
         boolean result = movieGenreService.deleteMovieGenre(movieGenreId);
         assertTrue(result);
+        verify(genreStatisticsService).invalidate(movieGenreId);
     }
 
     @Test
@@ -152,4 +160,20 @@ class MovieGenreServiceImplTest {
         assertEquals(expectedGenres.size(), actualGenres.size());
         assertTrue(actualGenres.containsAll(expectedGenres));
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Should keep the movies of deleted genres without a genre")
+    void deleteMovieGenresDetachesMoviesFirst() {
+        List<Long> ids = List.of(1L, 2L);
+        when(movieGenreRepository.deleteByIdIn(ids)).thenReturn(1);
+
+        int deleted = movieGenreService.deleteMovieGenres(ids);
+
+        assertEquals(1, deleted);
+        InOrder inOrder = inOrder(movieGenreRepository);
+        inOrder.verify(movieGenreRepository).detachMovies(ids);
+        inOrder.verify(movieGenreRepository).deleteByIdIn(ids);
+        verify(genreStatisticsService).invalidate(1L);
+        verify(genreStatisticsService).invalidate(2L);
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.movieapp.service.impl;
+
+import com.example.movieapp.model.Actor;
+import com.example.movieapp.model.Movie;
+import com.example.movieapp.model.MovieGenre;
+import com.example.movieapp.repository.MovieRepository;
+import com.example.movieapp.service.CacheInvalidationService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class MovieSearchServiceImplTest {
+
+    @Mock
+    private MovieRepository movieRepository;
+
+    @Mock
+    private CacheInvalidationService cacheInvalidationService;
+
+    @InjectMocks
+    private MovieSearchServiceImpl movieSearchService;
+
+    private Movie movie(Long id, String name, String description, String... actorNames) {
+        List<Actor> actors = new ArrayList<>();
+        for (String actorName : actorNames)
+            actors.add(new Actor(actorName));
+        Movie movie = new Movie(name, description, 9.99, new MovieGenre("Action"), "image.jpg", actors);
+        movie.setId(id);
+        return movie;
+    }
+
+    @Test
+    @DisplayName("Should rank a title match above a description match")
+    void searchRanksNameAboveDescription() {
+        movieSearchService.index(movie(1L, "Space Cowboys", "Old astronauts return to orbit", "Clint Eastwood"));
+        movieSearchService.index(movie(2L, "Gravity", "Stranded in space after an accident", "Sandra Bullock"));
+        movieSearchService.index(movie(3L, "Heat", "A cop hunts a crew of robbers", "Al Pacino"));
+
+        assertEquals(List.of(1L, 2L), movieSearchService.search("space", 10));
+    }
+
+    @Test
+    @DisplayName("Should find movies by actor name and forget removed movies")
+    void searchFindsActorsAndHonoursRemoval() {
+        movieSearchService.index(movie(1L, "Heat", "A cop hunts a crew of robbers", "Al Pacino", "Robert De Niro"));
+        movieSearchService.index(movie(2L, "Taxi Driver", "A veteran drives a cab at night", "Robert De Niro"));
+
+        assertEquals(List.of(1L), movieSearchService.search("pacino", 10));
+        assertEquals(2, movieSearchService.search("De Niro", 10).size());
+
+        movieSearchService.remove(1L);
+
+        assertEquals(List.of(2L), movieSearchService.search("robert", 10));
+        assertTrue(movieSearchService.search("pacino", 10).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should replace the indexed terms when a movie is re-indexed")
+    void indexReplacesPreviousVersion() {
+        movieSearchService.index(movie(1L, "Alien", "In space no one can hear you scream"));
+        movieSearchService.index(movie(1L, "Aliens", "This time it is war"));
+
+        assertTrue(movieSearchService.search("scream", 10).isEmpty());
+        assertEquals(List.of(1L), movieSearchService.search("war", 10));
+    }
+
+    @Test
+    @DisplayName("Should rebuild the index from the catalog in keyset chunks")
+    void rebuildLoadsWholeCatalog() {
+        when(movieRepository.findCatalogFirstPage(PageRequest.of(0, 500))).thenReturn(List.of(1L, 2L));
+        when(movieRepository.findDistinctByIdIn(any())).thenReturn(List.of(
+                movie(1L, "Heat", "A cop hunts a crew of robbers", "Al Pacino"),
+                movie(2L, "Gravity", "Stranded in space", "Sandra Bullock")));
+        when(movieRepository.findCatalogPageAfterId(2L, PageRequest.of(0, 500))).thenReturn(List.of());
+
+        movieSearchService.rebuild();
+
+        assertEquals(List.of(2L), movieSearchService.search("bullock", 10));
+    }
+
+    @Test
+    @DisplayName("Should publish every indexed and removed movie, and a rebuild for the whole region")
+    void publishesChanges() {
+        movieSearchService.index(movie(1L, "Heat", "A cop hunts a crew of robbers"));
+        movieSearchService.remove(2L);
+        when(movieRepository.findCatalogFirstPage(PageRequest.of(0, 500))).thenReturn(List.of());
+        movieSearchService.rebuild();
+
+        verify(cacheInvalidationService).publish(MovieSearchServiceImpl.REGION, 1L);
+        verify(cacheInvalidationService).publish(MovieSearchServiceImpl.REGION, 2L);
+        verify(cacheInvalidationService).publish(MovieSearchServiceImpl.REGION, null);
+    }
+
+    @Test
+    @DisplayName("Should reload a movie changed on another node and drop one deleted there")
+    void appliesRemoteInvalidations() {
+        movieSearchService.index(movie(1L, "Heat", "A cop hunts a crew of robbers"));
+        movieSearchService.index(movie(2L, "Gravity", "Stranded in space"));
+        when(movieRepository.findDistinctByIdIn(List.of(1L)))
+                .thenReturn(List.of(movie(1L, "Heat", "A detective hunts a crew of thieves")));
+        when(movieRepository.findDistinctByIdIn(List.of(2L))).thenReturn(List.of());
+
+        Consumer<Long> handler = handler();
+        handler.accept(1L);
+        handler.accept(2L);
+
+        assertTrue(movieSearchService.search("robbers", 10).isEmpty());
+        assertEquals(List.of(1L), movieSearchService.search("thieves", 10));
+        assertTrue(movieSearchService.search("gravity", 10).isEmpty());
+    }
+
+    @SuppressWarnings("unchecked")
+    private Consumer<Long> handler() {
+        ArgumentCaptor<Consumer<Long>> handler = ArgumentCaptor.forClass(Consumer.class);
+        verify(cacheInvalidationService).onInvalidation(eq(MovieSearchServiceImpl.REGION), handler.capture());
+        return handler.getValue();
+    }
+}
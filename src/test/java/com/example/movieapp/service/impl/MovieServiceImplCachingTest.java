@@ -0,0 +1,172 @@
+package com.example.movieapp.service.impl;
+
+import com.example.movieapp.config.CacheConfig;
+import com.example.movieapp.model.Actor;
+import com.example.movieapp.model.Movie;
+import com.example.movieapp.model.MovieGenre;
+import com.example.movieapp.model.MoviePage;
+import com.example.movieapp.model.MovieSortKey;
+import com.example.movieapp.repository.ActorRepository;
+import com.example.movieapp.repository.MovieGenreRepository;
+import com.example.movieapp.repository.MovieRepository;
+import com.example.movieapp.service.GenreStatisticsService;
+import com.example.movieapp.service.MovieSearchService;
+import com.example.movieapp.service.MovieService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@SpringJUnitConfig
+class MovieServiceImplCachingTest {
+
+    @Configuration
+    @Import({CacheConfig.class, MovieServiceImpl.class})
+    @EnableTransactionManagement
+    static class Config {
+        @Bean
+        CacheManager cacheManager() {
+            CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+            cacheManager.setCacheSpecification("maximumSize=100,recordStats");
+            return cacheManager;
+        }
+
+        @Bean
+        PlatformTransactionManager transactionManager() {
+            return mock(PlatformTransactionManager.class);
+        }
+    }
+
+    @MockBean
+    private MovieRepository movieRepository;
+
+    @MockBean
+    private ActorRepository actorRepository;
+
+    @MockBean
+    private MovieGenreRepository movieGenreRepository;
+
+    @MockBean
+    private MovieSearchService movieSearchService;
+
+    @MockBean
+    private GenreStatisticsService genreStatisticsService;
+
+    @Autowired
+    private MovieService movieService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Movie movie;
+
+    @BeforeEach
+    void setUp() {
+        reset(transactionManager);
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+        movie = new Movie("Movie 1", "Description 1", 9.99, new MovieGenre("Action"), "image.jpg",
+                new ArrayList<Actor>());
+        movie.setId(1L);
+        when(movieRepository.findById(1L)).thenReturn(Optional.of(movie));
+    }
+
+    @Test
+    @DisplayName("Should serve repeated reads of the same movie from the cache")
+    void getMovieIsReadThrough() {
+        Movie first = movieService.getMovie(1L);
+        Movie second = movieService.getMovie(1L);
+
+        assertSame(first, second);
+        verify(movieRepository, times(1)).findById(1L);
+    }
+
+    @Test
+    @DisplayName("Should go back to the repository after the movie is updated")
+    void updateMovieInvalidatesCachedMovie() {
+        when(movieGenreRepository.findById(2L)).thenReturn(Optional.of(new MovieGenre("Drama")));
+        when(actorRepository.findAllById(any())).thenReturn(new ArrayList<>());
+        when(movieRepository.save(movie)).thenReturn(movie);
+
+        movieService.getMovie(1L);
+        movieService.updateMovie(1L, "Movie 2", "Description 2", 5.0, 2L, "image.jpg", List.of());
+        movieService.getMovie(1L);
+
+        // one read before the update, one inside updateMovie, one after the eviction
+        verify(movieRepository, times(3)).findById(1L);
+    }
+
+    @Test
+    @DisplayName("Should go back to the repository for the catalog after a movie is deleted")
+    void deleteMovieInvalidatesCatalog() {
+        when(movieRepository.findAll()).thenReturn(List.of(movie));
+
+        movieService.getAllMovies();
+        movieService.getAllMovies();
+        movieService.deleteMovie(1L);
+        movieService.getAllMovies();
+
+        verify(movieRepository, times(2)).findAll();
+    }
+
+    @Test
+    @DisplayName("Should cache a page under the size it is served with")
+    void oversizedPageRequestsShareTheServedPage() {
+        when(movieRepository.findCatalogFirstPage(any())).thenReturn(List.of());
+
+        movieService.getMoviePage(MovieSortKey.ID, null, null, MoviePage.MAX_SIZE);
+        movieService.getMoviePage(MovieSortKey.ID, null, null, 500);
+        movieService.getMoviePage(MovieSortKey.ID, null, null, 1000);
+
+        verify(movieRepository, times(1)).findCatalogFirstPage(any());
+    }
+
+    @Test
+    @DisplayName("Should not open a transaction for a read served from the cache")
+    void cachedReadOpensNoTransaction() {
+        movieService.getMovie(1L);
+        movieService.getMovie(1L);
+
+        verify(transactionManager, times(1)).getTransaction(any());
+    }
+
+    @Test
+    @DisplayName("Should evict the cached movie only after the update has committed")
+    void updateEvictsAfterCommit() {
+        when(movieGenreRepository.findById(2L)).thenReturn(Optional.of(new MovieGenre("Drama")));
+        when(actorRepository.findAllById(any())).thenReturn(new ArrayList<>());
+        when(movieRepository.save(movie)).thenReturn(movie);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        movieService.getMovie(1L);
+        List<Boolean> cachedAtCommit = new ArrayList<>();
+        doAnswer(invocation -> cachedAtCommit.add(cacheManager.getCache(CacheConfig.MOVIES).get(1L) != null))
+                .when(transactionManager).commit(any());
+
+        movieService.updateMovie(1L, "Movie 2", "Description 2", 5.0, 2L, "image.jpg", List.of());
+
+        assertEquals(List.of(true), cachedAtCommit);
+        assertNull(cacheManager.getCache(CacheConfig.MOVIES).get(1L));
+    }
+}
@@ -1,19 +1,26 @@
 package com.example.movieapp.service.impl;
 
 import com.example.movieapp.model.Actor;
+import com.example.movieapp.model.GenreStatistics;
 import com.example.movieapp.model.Movie;
 import com.example.movieapp.model.MovieGenre;
+import com.example.movieapp.model.MoviePage;
+import com.example.movieapp.model.MovieSortKey;
+import com.example.movieapp.model.exceptions.InvalidArgumentsException;
 import com.example.movieapp.model.exceptions.MovieGenreNotFound;
 import com.example.movieapp.model.exceptions.MovieNotFound;
 import com.example.movieapp.repository.ActorRepository;
 import com.example.movieapp.repository.MovieGenreRepository;
 import com.example.movieapp.repository.MovieRepository;
+import com.example.movieapp.service.GenreStatisticsService;
+import com.example.movieapp.service.MovieSearchService;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -35,6 +42,12 @@ class MovieServiceImplTest {
     @Mock
     private MovieGenreRepository movieGenreRepository;
 
+    @Mock
+    private MovieSearchService movieSearchService;
+
+    @Mock
+    private GenreStatisticsService genreStatisticsService;
+
     @InjectMocks
     private MovieServiceImpl movieService;
 
@@ -43,13 +56,12 @@ class MovieServiceImplTest {
     @DisplayName("Should return zero when there are no movies for a given genre")
     void getNumberOfMoviesFromGenreReturnsZeroWhenNoMovies() {
         Long movieGenreId = 1L;
-        MovieGenre movieGenre = new MovieGenre("Action");
-        when(movieGenreRepository.findById(movieGenreId)).thenReturn(Optional.of(movieGenre));
-        when(movieRepository.findAllByMovieGenre(movieGenre)).thenReturn(new ArrayList<>());
+        when(genreStatisticsService.getStatistics(movieGenreId)).thenReturn(GenreStatistics.empty(movieGenreId));
 
         int numberOfMovies = movieService.getNumberOfMoviesFromGenre(movieGenreId);
 
         assertEquals(0, numberOfMovies);
+        verifyNoInteractions(movieRepository);
     }
 
 
@@ -57,7 +69,7 @@ class MovieServiceImplTest {
     @DisplayName("Should throw an exception when the genre does not exist")
     void getNumberOfMoviesFromGenreThrowsExceptionWhenGenreNotFound() {
         Long movieGenreId = 1L;
-        when(movieGenreRepository.findById(movieGenreId)).thenReturn(Optional.empty());
+        when(genreStatisticsService.getStatistics(movieGenreId)).thenThrow(new MovieGenreNotFound());
 
         // Act and Assert
         assertThrows(MovieGenreNotFound.class, () -> {
@@ -65,7 +77,7 @@ class MovieServiceImplTest {
         });
 
         // Verify
-        verify(movieGenreRepository, times(1)).findById(movieGenreId);
+        verify(genreStatisticsService, times(1)).getStatistics(movieGenreId);
         verifyNoMoreInteractions(movieRepository, actorRepository, movieGenreRepository);
     }
 
@@ -440,4 +452,144 @@ class MovieServiceImplTest {
 
         verify(movieRepository, times(1)).save(movie);
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Should return the first page and a cursor when more movies exist")
+    void getMoviePageReturnsCursorWhenMoreMoviesExist() {
+        MovieGenre movieGenre = new MovieGenre("Action");
+        List<Movie> movies = new ArrayList<>();
+        for (long i = 1; i <= 3; i++) {
+            Movie movie = new Movie("Movie " + i, "Description " + i, 10.0 + i, movieGenre, "image.jpg", null);
+            movie.setId(i);
+            movies.add(movie);
+        }
+        when(movieRepository.findCatalogFirstPageByPrice(PageRequest.of(0, 3))).thenReturn(List.of(1L, 2L, 3L));
+        when(movieRepository.findDistinctByIdIn(List.of(1L, 2L))).thenReturn(List.of(movies.get(1), movies.get(0)));
+
+        MoviePage page = movieService.getMoviePage(MovieSortKey.PRICE, null, null, 2);
+
+        assertEquals(List.of(movies.get(0), movies.get(1)), page.getMovies());
+        assertTrue(page.isHasNext());
+        assertEquals(2L, page.getNextAfterId());
+        assertEquals("12.0", page.getNextAfterValue());
+    }
+
+    @Test
+    @DisplayName("Should seek after the cursor and report the last page")
+    void getMoviePageSeeksAfterCursor() {
+        Movie movie = new Movie("Movie 3", "Description 3", 13.0, new MovieGenre("Action"), "image.jpg", null);
+        movie.setId(3L);
+        when(movieRepository.findCatalogPageAfterPrice(12.0, 2L, PageRequest.of(0, 3))).thenReturn(List.of(3L));
+        when(movieRepository.findDistinctByIdIn(List.of(3L))).thenReturn(List.of(movie));
+
+        MoviePage page = movieService.getMoviePage(MovieSortKey.PRICE, 2L, "12.0", 2);
+
+        assertEquals(List.of(movie), page.getMovies());
+        assertFalse(page.isHasNext());
+        assertNull(page.getNextAfterId());
+        verify(movieRepository, never()).findAll();
+    }
+
+    @Test
+    @DisplayName("Should throw an exception when the price cursor is not a number")
+    void getMoviePageWhenCursorIsInvalidThenThrowException() {
+        assertThrows(InvalidArgumentsException.class,
+                () -> movieService.getMoviePage(MovieSortKey.PRICE, 2L, "cheap", 2)
+        );
+
+        verifyNoInteractions(movieRepository);
+    }
+
+    @Test
+    @DisplayName("Should delete movies with set-based statements and reload statistics of the affected genres")
+    void deleteMoviesRemovesCartEntriesActorLinksAndRows() {
+        List<Long> ids = Arrays.asList(1L, 2L, 2L, null, 3L);
+        List<Long> distinct = Arrays.asList(1L, 2L, 3L);
+        when(movieRepository.findGenreIdsByIdIn(distinct)).thenReturn(Arrays.asList(7L, 8L));
+        when(movieRepository.deleteByIdIn(distinct)).thenReturn(2);
+
+        int deleted = movieService.deleteMovies(ids);
+
+        assertEquals(2, deleted);
+        verify(movieRepository).removeFromShoppingCarts(distinct);
+        verify(movieRepository).deleteActorLinks(distinct);
+        verify(movieSearchService).remove(distinct);
+        verify(genreStatisticsService).invalidate(7L);
+        verify(genreStatisticsService).invalidate(8L);
+        verify(movieRepository, never()).delete(any(Movie.class));
+        verify(movieRepository, never()).findDistinctByIdIn(anyList());
+    }
+
+    @Test
+    @DisplayName("Should split a large movie delete into chunks of bind parameters")
+    void deleteMoviesSplitsIntoChunks() {
+        List<Long> ids = new ArrayList<>();
+        for (long id = 1; id <= 2500; id++)
+            ids.add(id);
+        when(movieRepository.deleteByIdIn(anyList())).thenAnswer(invocation -> ((List<?>) invocation.getArgument(0)).size());
+
+        int deleted = movieService.deleteMovies(ids);
+
+        assertEquals(2500, deleted);
+        verify(movieRepository, times(3)).deleteByIdIn(anyList());
+        verify(movieRepository, times(3)).removeFromShoppingCarts(anyList());
+        verify(movieRepository).deleteByIdIn(ids.subList(2000, 2500));
+    }
+
+    @Test
+    @DisplayName("Should take a deleted movie out of shopping carts")
+    void deleteMovieRemovesItFromShoppingCarts() {
+        Movie movie = new Movie("Test Movie", "Test Description", 9.99, null, "test-image.jpg", new ArrayList<>());
+        when(movieRepository.findById(1L)).thenReturn(Optional.of(movie));
+
+        assertTrue(movieService.deleteMovie(1L));
+
+        verify(movieRepository).removeFromShoppingCarts(List.of(1L));
+        verify(movieRepository, times(1)).findById(1L);
+    }
+
+    @Test
+    @DisplayName("Should reprice a whole genre with one update and no entity loaded")
+    void changePricesOfGenreScalesInOneStatement() {
+        when(movieRepository.scalePricesOfGenre(4L, 0.8)).thenReturn(12);
+
+        int updated = movieService.changePricesOfGenre(4L, -20);
+
+        assertEquals(12, updated);
+        verify(movieRepository).bumpShoppingCartsWithGenre(4L);
+        verify(genreStatisticsService).invalidate(4L);
+        verify(movieRepository, never()).findAllByMovieGenre(any());
+        verify(actorRepository, never()).findAllById(anyList());
+    }
+
+    @Test
+    @DisplayName("Should reject a price change that would make prices zero or negative")
+    void changePricesOfGenreRejectsFullDiscount() {
+        assertThrows(InvalidArgumentsException.class, () -> movieService.changePricesOfGenre(4L, -100));
+
+        verify(movieRepository, never()).scalePricesOfGenre(anyLong(), anyDouble());
+    }
+
+    @Test
+    @DisplayName("Should set one price on the selected movies and reload statistics of their genres")
+    void setPricesUpdatesSelection() {
+        List<Long> ids = Arrays.asList(1L, 2L, 3L);
+        when(movieRepository.findGenreIdsByIdIn(ids)).thenReturn(List.of(7L));
+        when(movieRepository.setPrices(ids, 4.99)).thenReturn(3);
+
+        int updated = movieService.setPrices(ids, 4.99);
+
+        assertEquals(3, updated);
+        verify(movieRepository).bumpShoppingCartsWithMovies(ids);
+        verify(genreStatisticsService).invalidate(7L);
+        verify(movieRepository, never()).save(any(Movie.class));
+    }
+
+    @Test
+    @DisplayName("Should reject a negative price")
+    void setPricesRejectsNegativePrice() {
+        assertThrows(InvalidArgumentsException.class, () -> movieService.setPrices(List.of(1L), -1));
+
+        verify(movieRepository, never()).setPrices(anyCollection(), anyDouble());
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.movieapp.service.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Password checks per second, per core and in total, at each BCrypt strength, for choosing
+ * app.security.bcrypt-strength. Run with: mvn test -Dtest=PasswordHashingBenchmarkTest -Dbenchmark=true
+ */
+@Slf4j
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class PasswordHashingBenchmarkTest {
+
+    private static final long MEASURE_MILLIS = 3000;
+
+    @Test
+    void loginsPerSecondPerCore() throws Exception {
+        int cores = Runtime.getRuntime().availableProcessors();
+        for (int strength = 8; strength <= 13; strength++) {
+            BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(strength);
+            String hash = encoder.encode("password");
+            encoder.matches("password", hash);
+
+            ExecutorService executor = Executors.newFixedThreadPool(cores);
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(MEASURE_MILLIS);
+            List<Future<Integer>> workers = new ArrayList<>();
+            for (int i = 0; i < cores; i++)
+                workers.add(executor.submit(() -> {
+                    int checks = 0;
+                    while (System.nanoTime() < deadline) {
+                        assertTrue(encoder.matches("password", hash));
+                        checks++;
+                    }
+                    return checks;
+                }));
+            long checks = 0;
+            for (Future<Integer> worker : workers)
+                checks += worker.get();
+            executor.shutdown();
+
+            double perSecond = checks * 1000.0 / MEASURE_MILLIS;
+            log.info("bcrypt strength {}: {} logins/s on {} cores, {} logins/s per core", strength,
+                    String.format("%.1f", perSecond), cores, String.format("%.1f", perSecond / cores));
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.movieapp.service.impl;
+
+import com.example.movieapp.model.ChargeRequest;
+import com.example.movieapp.model.PaymentResult;
+import com.example.movieapp.model.exceptions.PaymentFailedException;
+import com.example.movieapp.service.PaymentGateway;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResilientPaymentGatewayTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private ResilientPaymentGateway gateway;
+
+    private ResilientPaymentGateway gateway(PaymentGateway delegate, int maxConcurrentCalls, long timeoutMillis) {
+        gateway = new ResilientPaymentGateway(delegate, meterRegistry, maxConcurrentCalls, timeoutMillis, 4, 50, 60_000, 1);
+        return gateway;
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (gateway != null)
+            gateway.shutdown();
+    }
+
+    private static ChargeRequest chargeRequest(String stripeToken) {
+        ChargeRequest chargeRequest = new ChargeRequest();
+        chargeRequest.setStripeToken(stripeToken);
+        return chargeRequest;
+    }
+
+    @Test
+    @DisplayName("Should pass successful charges through and time them")
+    void chargeDelegatesAndRecordsLatency() {
+        PaymentResult result = gateway(new StubPaymentGateway(0), 2, 1000).charge(chargeRequest("tok_visa"));
+
+        assertEquals("succeeded", result.getStatus());
+        assertEquals(1, meterRegistry.get("payment.gateway.calls").tag("outcome", "success").timer().count());
+    }
+
+    @Test
+    @DisplayName("Should give up on a call after the deadline with a retryable failure")
+    void chargeTimesOut() {
+        PaymentFailedException exception = assertThrows(PaymentFailedException.class,
+                () -> gateway(new StubPaymentGateway(2000), 2, 50).charge(chargeRequest("tok_visa")));
+
+        assertTrue(exception.isRetryable());
+        assertEquals(1, meterRegistry.get("payment.gateway.calls").tag("outcome", "timeout").timer().count());
+    }
+
+    @Test
+    @DisplayName("Should hold the permit of a timed-out call until the provider call really ends")
+    void timedOutCallKeepsItsPermitUntilItEnds() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        ResilientPaymentGateway resilient = gateway(chargeRequest -> {
+            // like a blocking HTTP call, cancellation does not stop it
+            while (release.getCount() > 0) {
+                try {
+                    release.await();
+                } catch (InterruptedException ignored) {
+                }
+            }
+            return new PaymentResult("ch_1", "succeeded");
+        }, 1, 50);
+
+        assertThrows(PaymentFailedException.class, () -> resilient.charge(chargeRequest("tok_visa")));
+        assertEquals(0, resilient.getAvailablePermits());
+        PaymentFailedException rejected = assertThrows(PaymentFailedException.class,
+                () -> resilient.charge(chargeRequest("tok_visa")));
+        assertEquals("Too many payments in progress", rejected.getMessage());
+
+        release.countDown();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (resilient.getAvailablePermits() == 0 && System.currentTimeMillis() < deadline)
+            Thread.sleep(5);
+        assertEquals(1, resilient.getAvailablePermits());
+    }
+
+    @Test
+    @DisplayName("Should reject calls beyond the concurrency limit instead of queueing them")
+    void chargeRejectsWhenBulkheadIsFull() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger started = new AtomicInteger();
+        ResilientPaymentGateway resilient = gateway(chargeRequest -> {
+            started.incrementAndGet();
+            try {
+                release.await();
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            }
+            return new PaymentResult("ch_1", "succeeded");
+        }, 1, 5000);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<PaymentResult> inFlight = executor.submit(() -> resilient.charge(chargeRequest("tok_visa")));
+        while (started.get() == 0)
+            Thread.sleep(5);
+
+        assertThrows(PaymentFailedException.class, () -> resilient.charge(chargeRequest("tok_visa")));
+
+        release.countDown();
+        assertEquals("ch_1", inFlight.get(5, TimeUnit.SECONDS).getChargeId());
+        executor.shutdown();
+        assertEquals(1, started.get());
+        assertEquals(1.0, meterRegistry.get("payment.gateway.rejections").tag("reason", "bulkhead").counter().count());
+    }
+
+    @Test
+    @DisplayName("Should open the circuit when the provider keeps failing, and not count declined cards")
+    void chargeOpensCircuitOnProviderFailures() {
+        AtomicInteger calls = new AtomicInteger();
+        StubPaymentGateway stub = new StubPaymentGateway(0);
+        ResilientPaymentGateway resilient = gateway(chargeRequest -> {
+            calls.incrementAndGet();
+            return stub.charge(chargeRequest);
+        }, 2, 1000);
+
+        for (int i = 0; i < 4; i++)
+            assertThrows(PaymentFailedException.class, () -> resilient.charge(chargeRequest(StubPaymentGateway.DECLINED_TOKEN)));
+        assertEquals(CircuitBreaker.State.CLOSED, resilient.getCircuitState());
+
+        for (int i = 0; i < 2; i++)
+            assertThrows(PaymentFailedException.class, () -> resilient.charge(chargeRequest(StubPaymentGateway.UNAVAILABLE_TOKEN)));
+        assertEquals(CircuitBreaker.State.OPEN, resilient.getCircuitState());
+
+        assertThrows(PaymentFailedException.class, () -> resilient.charge(chargeRequest("tok_visa")));
+        assertEquals(6, calls.get());
+        assertEquals(1.0, meterRegistry.get("payment.gateway.rejections").tag("reason", "circuit_open").counter().count());
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.movieapp.service.impl;
+
+import com.example.movieapp.model.Role;
+import com.example.movieapp.model.ShoppingCart;
+import com.example.movieapp.model.User;
+import com.example.movieapp.repository.UserRepository;
+import com.example.movieapp.service.ShoppingCartService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Hundreds of parallel first requests of one user against a real Postgres, where only the partial
+ * unique index {@code uk_shopping_cart_active_user} and the {@code ON CONFLICT} insert from
+ * schema-postgresql.sql keep them to one cart. Works in its own schema:
+ * {@code mvn test -Dtest=ShoppingCartActiveCartPostgresTest -Dpg.url=jdbc:postgresql://localhost:5432/MoviesDb
+ * -Dpg.username=postgres -Dpg.password=...}
+ */
+@EnabledIfSystemProperty(named = "pg.url", matches = ".+")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@DataJpaTest(properties = {
+        "spring.datasource.url=${pg.url}",
+        "spring.datasource.username=${pg.username:postgres}",
+        "spring.datasource.password=${pg.password:}",
+        "spring.datasource.hikari.maximumPoolSize=20",
+        "spring.datasource.hikari.connection-init-sql=CREATE SCHEMA IF NOT EXISTS active_cart_test",
+        "spring.datasource.hikari.data-source-properties.currentSchema=active_cart_test",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false"
+})
+@Import(ShoppingCartServiceImpl.class)
+class ShoppingCartActiveCartPostgresTest {
+
+    private static final int REQUESTS = 200;
+
+    @Autowired
+    private ShoppingCartService shoppingCartService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @DisplayName("Concurrent first requests of one user should create exactly one active cart in the database")
+    void concurrentFirstRequestsCreateOneCart() throws Exception {
+        String username = "cart-stress-" + System.nanoTime();
+        this.userRepository.save(new User(username, username + "@example.com", "password", Role.ROLE_USER));
+
+        ExecutorService executor = Executors.newFixedThreadPool(REQUESTS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<ShoppingCart>> results = new ArrayList<>();
+        for (int i = 0; i < REQUESTS; i++)
+            results.add(executor.submit(() -> {
+                start.await();
+                return this.shoppingCartService.getActiveShoppingCart(username);
+            }));
+        start.countDown();
+
+        Set<Long> cartIds = new HashSet<>();
+        for (Future<ShoppingCart> result : results)
+            cartIds.add(result.get(60, TimeUnit.SECONDS).getId());
+        executor.shutdown();
+
+        assertEquals(1, cartIds.size());
+        assertEquals(1, this.jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM shopping_cart WHERE user_username = ? AND status = 'CREATED'",
+                Integer.class, username));
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.movieapp.service.impl;
+
+import com.example.movieapp.model.Role;
+import com.example.movieapp.model.ShoppingCart;
+import com.example.movieapp.model.ShoppingCartStatus;
+import com.example.movieapp.model.User;
+import com.example.movieapp.repository.MovieRepository;
+import com.example.movieapp.repository.ShoppingCartRepository;
+import com.example.movieapp.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+/**
+ * Contention harness for cart mutations: many threads add distinct movies to one user's cart through two
+ * service instances (two application nodes with separate in-process locks) sharing one cart row. The row's
+ * version compare-and-set and the movie inserts are simulated with mocks, so this checks the service's
+ * retry logic against that simulation, not the database; counts and throughput are logged at debug level.
+ */
+@Slf4j
+@ExtendWith(MockitoExtension.class)
+class ShoppingCartServiceImplConcurrencyTest {
+
+    private static final int THREADS = 16;
+    private static final int OPERATIONS = 2000;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private MovieRepository movieRepository;
+
+    @Mock
+    private ShoppingCartRepository shoppingCartRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final User user = new User("user", "password", "email@email.com", Role.ROLE_USER);
+    private final AtomicLong version = new AtomicLong();
+    private final AtomicInteger conflicts = new AtomicInteger();
+    private final Set<Long> membership = ConcurrentHashMap.newKeySet();
+
+    @BeforeEach
+    void setUp() {
+        when(userRepository.findByUsername("user")).thenReturn(Optional.of(user));
+        when(shoppingCartRepository.findByUserAndStatus(user, ShoppingCartStatus.CREATED)).thenAnswer(invocation -> {
+            ShoppingCart shoppingCart = new ShoppingCart(user);
+            shoppingCart.setId(1L);
+            shoppingCart.setVersion(version.get());
+            return Optional.of(shoppingCart);
+        });
+        when(shoppingCartRepository.bumpVersion(eq(1L), anyLong())).thenAnswer(invocation -> {
+            long expected = invocation.getArgument(1);
+            if (version.compareAndSet(expected, expected + 1))
+                return 1;
+            conflicts.incrementAndGet();
+            return 0;
+        });
+        when(shoppingCartRepository.addMovie(eq(1L), anyLong()))
+                .thenAnswer(invocation -> membership.add(invocation.getArgument(1)) ? 1 : 0);
+    }
+
+    @Test
+    @DisplayName("Concurrent cart additions from two nodes should not lose updates")
+    void concurrentAdditionsLoseNoUpdates() throws Exception {
+        ShoppingCartServiceImpl[] nodes = {
+                new ShoppingCartServiceImpl(userRepository, movieRepository, shoppingCartRepository, transactionManager),
+                new ShoppingCartServiceImpl(userRepository, movieRepository, shoppingCartRepository, transactionManager)
+        };
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger rejected = new AtomicInteger();
+        List<Future<Long>> results = new ArrayList<>();
+        for (long movieId = 1; movieId <= OPERATIONS; movieId++) {
+            long id = movieId;
+            results.add(executor.submit(() -> {
+                start.await();
+                try {
+                    nodes[(int) (id % nodes.length)].addMovieToShoppingCart("user", id);
+                    return id;
+                } catch (ObjectOptimisticLockingFailureException exception) {
+                    rejected.incrementAndGet();
+                    return null;
+                }
+            }));
+        }
+
+        long startedAt = System.nanoTime();
+        start.countDown();
+        List<Long> acknowledged = new ArrayList<>();
+        for (Future<Long> result : results) {
+            Long movieId = result.get(30, TimeUnit.SECONDS);
+            if (movieId != null)
+                acknowledged.add(movieId);
+        }
+        double seconds = (System.nanoTime() - startedAt) / 1e9;
+        executor.shutdown();
+
+        long lost = acknowledged.stream().filter(movieId -> !membership.contains(movieId)).count();
+        log.debug("cart mutations: {} ok, {} rejected, {} version conflicts, {} lost, {} ops/s",
+                acknowledged.size(), rejected.get(), conflicts.get(), lost, Math.round(acknowledged.size() / seconds));
+
+        assertEquals(0, lost);
+        assertEquals(OPERATIONS, acknowledged.size() + rejected.get());
+        assertEquals(acknowledged.size(), version.get());
+    }
+}
@@ -1,6 +1,8 @@
 package com.example.movieapp.service.impl;
 
 import com.example.movieapp.model.*;
+import com.example.movieapp.model.exceptions.MovieAlreadyInShoppingCartException;
+import com.example.movieapp.model.exceptions.MovieNotFound;
 import com.example.movieapp.model.exceptions.ShoppingCartNotFoundException;
 import com.example.movieapp.repository.MovieRepository;
 import com.example.movieapp.repository.ShoppingCartRepository;
@@ -12,10 +14,23 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -33,6 +48,9 @@ class ShoppingCartServiceImplTest {
     @Mock
     private ShoppingCartRepository shoppingCartRepository;
 
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
     @InjectMocks
     private ShoppingCartServiceImpl shoppingCartService;
 
@@ -102,7 +120,7 @@ class ShoppingCartServiceImplTest {
         List<Movie> movies = new ArrayList<>();
         movies.add(new Movie("Movie 1", "Description 1", 10.0, movieGenre, "image1.jpg", actors));
         movies.add(new Movie("Movie 2", "Description 2", 15.0, movieGenre, "image2.jpg", actors));
-        shoppingCart.setMovies(movies);
+        shoppingCart.setMovies(new LinkedHashSet<>(movies));
 
         when(shoppingCartRepository.findById(cartId)).thenReturn(Optional.of(shoppingCart));
 
@@ -111,4 +129,202 @@ class ShoppingCartServiceImplTest {
         assertEquals(movies, result);
         verify(shoppingCartRepository, times(1)).findById(cartId);
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Should price the cart with a single aggregate query")
+    void getPriceUsesAggregateQuery() {
+        Long cartId = 1L;
+        when(shoppingCartRepository.findTotalPrice(cartId)).thenReturn(Optional.of(25.0));
+
+        double price = shoppingCartService.getPrice(cartId);
+
+        assertEquals(25.0, price);
+        verify(shoppingCartRepository, times(1)).findTotalPrice(cartId);
+        verifyNoMoreInteractions(shoppingCartRepository);
+    }
+
+    @Test
+    @DisplayName("Should throw ShoppingCartNotFoundException when pricing a cart that does not exist")
+    void getPriceWhenCartIdIsNotValidThenThrowException() {
+        Long cartId = 1L;
+        when(shoppingCartRepository.findTotalPrice(cartId)).thenReturn(Optional.empty());
+
+        assertThrows(ShoppingCartNotFoundException.class, () -> shoppingCartService.getPrice(cartId));
+    }
+
+    @Test
+    @DisplayName("Should list the cart through the lean projection without loading the cart entity")
+    void listCartMovieViewsUsesProjection() {
+        Long cartId = 1L;
+        CartMovieView view = mock(CartMovieView.class);
+        when(shoppingCartRepository.findCartMovieViews(cartId)).thenReturn(List.of(view));
+
+        List<CartMovieView> result = shoppingCartService.listCartMovieViews(cartId);
+
+        assertEquals(List.of(view), result);
+        verify(shoppingCartRepository, never()).findById(cartId);
+    }
+
+    @Test
+    @DisplayName("Should add a movie with a single join-row insert without loading the cart contents")
+    void addMovieToShoppingCartInsertsOneRow() {
+        String username = "user";
+        ShoppingCart shoppingCart = new ShoppingCart(user);
+        shoppingCart.setId(1L);
+        shoppingCart.setVersion(0L);
+        when(userRepository.findByUsername(username)).thenReturn(Optional.of(user));
+        when(shoppingCartRepository.findByUserAndStatus(user, ShoppingCartStatus.CREATED)).thenReturn(Optional.of(shoppingCart));
+        when(shoppingCartRepository.bumpVersion(1L, 0L)).thenReturn(1);
+        when(shoppingCartRepository.addMovie(1L, 5L)).thenReturn(1);
+
+        shoppingCartService.addMovieToShoppingCart(username, 5L);
+
+        verify(shoppingCartRepository, times(1)).addMovie(1L, 5L);
+        verify(shoppingCartRepository, never()).save(any(ShoppingCart.class));
+        verifyNoInteractions(movieRepository);
+    }
+
+    @Test
+    @DisplayName("Should throw MovieAlreadyInShoppingCartException when the join row already exists")
+    void addMovieToShoppingCartWhenAlreadyPresentThenThrowException() {
+        String username = "user";
+        ShoppingCart shoppingCart = new ShoppingCart(user);
+        shoppingCart.setId(1L);
+        shoppingCart.setVersion(0L);
+        when(userRepository.findByUsername(username)).thenReturn(Optional.of(user));
+        when(shoppingCartRepository.findByUserAndStatus(user, ShoppingCartStatus.CREATED)).thenReturn(Optional.of(shoppingCart));
+        when(shoppingCartRepository.bumpVersion(1L, 0L)).thenReturn(1);
+        when(shoppingCartRepository.addMovie(1L, 5L)).thenReturn(0);
+
+        assertThrows(MovieAlreadyInShoppingCartException.class,
+                () -> shoppingCartService.addMovieToShoppingCart(username, 5L));
+    }
+
+    @Test
+    @DisplayName("Should throw MovieNotFound when the movie to add does not exist")
+    void addMovieToShoppingCartWhenMovieDoesNotExistThenThrowException() {
+        String username = "user";
+        ShoppingCart shoppingCart = new ShoppingCart(user);
+        shoppingCart.setId(1L);
+        shoppingCart.setVersion(0L);
+        when(userRepository.findByUsername(username)).thenReturn(Optional.of(user));
+        when(shoppingCartRepository.findByUserAndStatus(user, ShoppingCartStatus.CREATED)).thenReturn(Optional.of(shoppingCart));
+        when(shoppingCartRepository.bumpVersion(1L, 0L)).thenReturn(1);
+        when(shoppingCartRepository.addMovie(1L, 5L)).thenThrow(new DataIntegrityViolationException("fk"));
+
+        assertThrows(MovieNotFound.class, () -> shoppingCartService.addMovieToShoppingCart(username, 5L));
+    }
+
+    @Test
+    @DisplayName("Should remove a movie with a single join-row delete")
+    void deleteMovieFromShoppingCartDeletesOneRow() {
+        String username = "user";
+        ShoppingCart shoppingCart = new ShoppingCart(user);
+        shoppingCart.setId(1L);
+        shoppingCart.setVersion(0L);
+        when(userRepository.findByUsername(username)).thenReturn(Optional.of(user));
+        when(shoppingCartRepository.findByUserAndStatus(user, ShoppingCartStatus.CREATED)).thenReturn(Optional.of(shoppingCart));
+        when(shoppingCartRepository.bumpVersion(1L, 0L)).thenReturn(1);
+        when(shoppingCartRepository.removeMovie(1L, 5L)).thenReturn(1);
+
+        shoppingCartService.deleteMovieFromShoppingCart(username, 5L);
+
+        verify(shoppingCartRepository, never()).save(any(ShoppingCart.class));
+        verifyNoInteractions(movieRepository);
+    }
+
+    @Test
+    @DisplayName("Should create a missing active cart with the idempotent insert instead of save")
+    void getActiveShoppingCartWhenMissingThenInsertsIfAbsent() {
+        String username = "user";
+        ShoppingCart shoppingCart = new ShoppingCart(user);
+        shoppingCart.setId(1L);
+        when(userRepository.findByUsername(username)).thenReturn(Optional.of(user));
+        when(shoppingCartRepository.findByUserAndStatus(user, ShoppingCartStatus.CREATED))
+                .thenReturn(Optional.empty(), Optional.of(shoppingCart));
+        when(shoppingCartRepository.insertActiveCartIfAbsent(username)).thenReturn(1);
+
+        assertEquals(shoppingCart, shoppingCartService.getActiveShoppingCart(username));
+        verify(shoppingCartRepository, never()).save(any(ShoppingCart.class));
+    }
+
+    @Test
+    @DisplayName("Concurrent first requests should all read back the cart of whichever insert won (database behaviour simulated, see ShoppingCartActiveCartPostgresTest)")
+    void getActiveShoppingCartConcurrentlyCreatesOneCart() throws Exception {
+        String username = "user";
+        int threads = 64;
+        AtomicReference<ShoppingCart> table = new AtomicReference<>();
+        AtomicInteger inserted = new AtomicInteger();
+        when(userRepository.findByUsername(username)).thenReturn(Optional.of(user));
+        when(shoppingCartRepository.findByUserAndStatus(user, ShoppingCartStatus.CREATED))
+                .thenAnswer(invocation -> Optional.ofNullable(table.get()));
+        // behaves like INSERT ... ON CONFLICT DO NOTHING against the partial unique index
+        when(shoppingCartRepository.insertActiveCartIfAbsent(username)).thenAnswer(invocation -> {
+            ShoppingCart cart = new ShoppingCart(user);
+            cart.setId((long) inserted.get() + 1);
+            if (table.compareAndSet(null, cart)) {
+                inserted.incrementAndGet();
+                return 1;
+            }
+            return 0;
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<ShoppingCart>> results = new ArrayList<>();
+        for (int i = 0; i < threads; i++)
+            results.add(executor.submit(() -> {
+                start.await();
+                return shoppingCartService.getActiveShoppingCart(username);
+            }));
+        start.countDown();
+
+        Set<Long> cartIds = new HashSet<>();
+        for (Future<ShoppingCart> result : results)
+            cartIds.add(result.get(10, TimeUnit.SECONDS).getId());
+        executor.shutdown();
+
+        assertEquals(1, inserted.get());
+        assertEquals(Set.of(1L), cartIds);
+        verify(shoppingCartRepository, never()).save(any(ShoppingCart.class));
+    }
+
+    @Test
+    @DisplayName("Should retry a cart change on a version conflict and give up after the bounded number of attempts")
+    void addMovieToShoppingCartWhenVersionKeepsChangingThenThrowException() {
+        String username = "user";
+        ShoppingCart shoppingCart = new ShoppingCart(user);
+        shoppingCart.setId(1L);
+        shoppingCart.setVersion(0L);
+        when(userRepository.findByUsername(username)).thenReturn(Optional.of(user));
+        when(shoppingCartRepository.findByUserAndStatus(user, ShoppingCartStatus.CREATED)).thenReturn(Optional.of(shoppingCart));
+        when(shoppingCartRepository.bumpVersion(1L, 0L)).thenReturn(0);
+
+        assertThrows(ObjectOptimisticLockingFailureException.class,
+                () -> shoppingCartService.addMovieToShoppingCart(username, 5L));
+
+        verify(shoppingCartRepository, times(ShoppingCartServiceImpl.MAX_MUTATION_ATTEMPTS)).bumpVersion(1L, 0L);
+        verify(shoppingCartRepository, never()).addMovie(anyLong(), anyLong());
+    }
+
+    @Test
+    @DisplayName("Should apply a cart change once the version check succeeds on a retry")
+    void addMovieToShoppingCartWhenVersionConflictsOnceThenRetries() {
+        String username = "user";
+        ShoppingCart stale = new ShoppingCart(user);
+        stale.setId(1L);
+        stale.setVersion(0L);
+        ShoppingCart fresh = new ShoppingCart(user);
+        fresh.setId(1L);
+        fresh.setVersion(1L);
+        when(userRepository.findByUsername(username)).thenReturn(Optional.of(user));
+        when(shoppingCartRepository.findByUserAndStatus(user, ShoppingCartStatus.CREATED))
+                .thenReturn(Optional.of(stale), Optional.of(fresh));
+        when(shoppingCartRepository.bumpVersion(1L, 0L)).thenReturn(0);
+        when(shoppingCartRepository.bumpVersion(1L, 1L)).thenReturn(1);
+        when(shoppingCartRepository.addMovie(1L, 5L)).thenReturn(1);
+
+        assertEquals(fresh, shoppingCartService.addMovieToShoppingCart(username, 5L));
+        verify(shoppingCartRepository, times(1)).addMovie(1L, 5L);
+    }
+}
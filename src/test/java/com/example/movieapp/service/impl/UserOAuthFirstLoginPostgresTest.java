@@ -0,0 +1,89 @@
+package com.example.movieapp.service.impl;
+
+import com.example.movieapp.repository.UserRepository;
+import com.example.movieapp.service.UsernameAvailabilityService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Simultaneous first OAuth logins of one user, spread over several service instances (nodes with their
+ * own provisioned-user caches), against a real Postgres where only the primary key and the
+ * {@code ON CONFLICT} insert keep them to one user. Works in its own schema:
+ * {@code mvn test -Dtest=UserOAuthFirstLoginPostgresTest -Dpg.url=jdbc:postgresql://localhost:5432/MoviesDb
+ * -Dpg.username=postgres -Dpg.password=...}
+ */
+@EnabledIfSystemProperty(named = "pg.url", matches = ".+")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@DataJpaTest(properties = {
+        "spring.datasource.url=${pg.url}",
+        "spring.datasource.username=${pg.username:postgres}",
+        "spring.datasource.password=${pg.password:}",
+        "spring.datasource.hikari.maximumPoolSize=20",
+        "spring.datasource.hikari.connection-init-sql=CREATE SCHEMA IF NOT EXISTS oauth_first_login_test",
+        "spring.datasource.hikari.data-source-properties.currentSchema=oauth_first_login_test",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false"
+})
+class UserOAuthFirstLoginPostgresTest {
+
+    private static final int LOGINS = 200;
+    private static final int NODES = 4;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @DisplayName("Simultaneous first OAuth logins of one user should create exactly one user row")
+    void concurrentFirstLoginsCreateOneUser() throws Exception {
+        String username = "oauth-" + System.nanoTime();
+        UsernameAvailabilityService usernameAvailabilityService = mock(UsernameAvailabilityService.class);
+        List<UserServiceImpl> nodes = new ArrayList<>();
+        for (int i = 0; i < NODES; i++)
+            nodes.add(new UserServiceImpl(this.userRepository, new BCryptPasswordEncoder(), usernameAvailabilityService));
+
+        ExecutorService executor = Executors.newFixedThreadPool(LOGINS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> logins = new ArrayList<>();
+        for (int i = 0; i < LOGINS; i++) {
+            UserServiceImpl node = nodes.get(i % NODES);
+            logins.add(executor.submit(() -> {
+                start.await();
+                node.processOAuthPostLogin(username, username + "@example.com");
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> login : logins)
+            login.get(60, TimeUnit.SECONDS);
+        executor.shutdown();
+
+        assertEquals(1, this.jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM movie_shop_users WHERE username = ?", Integer.class, username));
+        verify(usernameAvailabilityService, times(1)).registered(username);
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.movieapp.service.impl;
+
+import com.example.movieapp.model.Role;
+import com.example.movieapp.model.ShoppingCart;
+import com.example.movieapp.model.User;
+import com.example.movieapp.model.UserPrincipal;
+import com.example.movieapp.model.exceptions.UsernameAlreadyExistsException;
+import com.example.movieapp.repository.UserRepository;
+import com.example.movieapp.service.UsernameAvailabilityService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserServiceImplTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private PasswordEncoder passwordEncoder;
+
+    @Mock
+    private UsernameAvailabilityService usernameAvailabilityService;
+
+    @InjectMocks
+    private UserServiceImpl userService;
+
+    @Test
+    @DisplayName("Should load a lean principal carrying only username, role and account flags")
+    void loadUserByUsernameReturnsPrincipal() throws IOException {
+        User user = spy(new User("user", "email@email.com", "hash", Role.ROLE_USER));
+        List<ShoppingCart> carts = new ArrayList<>();
+        for (int i = 0; i < 300; i++)
+            carts.add(new ShoppingCart(user));
+        user.setCarts(carts);
+        when(userRepository.findByUsername("user")).thenReturn(Optional.of(user));
+
+        UserDetails userDetails = userService.loadUserByUsername("user");
+
+        assertTrue(userDetails instanceof UserPrincipal);
+        assertEquals("user", userDetails.getUsername());
+        assertEquals("hash", userDetails.getPassword());
+        assertEquals(List.of(Role.ROLE_USER), new ArrayList<>(userDetails.getAuthorities()));
+        verify(user, never()).getCarts();
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(((UserPrincipal) userDetails).withoutPassword());
+        }
+        assertTrue(bytes.size() < 1024, "serialized principal is " + bytes.size() + " bytes");
+    }
+
+    @Test
+    @DisplayName("Should throw UsernameNotFoundException for an unknown username")
+    void loadUserByUsernameWhenUnknownThenThrowException() {
+        when(userRepository.findByUsername("nobody")).thenReturn(Optional.empty());
+
+        assertThrows(UsernameNotFoundException.class, () -> userService.loadUserByUsername("nobody"));
+    }
+
+    @Test
+    @DisplayName("Should store a rehashed password and return the refreshed principal")
+    void updatePasswordStoresNewHash() {
+        User user = new User("user", "email@email.com", "new-hash", Role.ROLE_USER);
+        when(userRepository.findByUsername("user")).thenReturn(Optional.of(user));
+
+        UserDetails updated = userService.updatePassword(UserPrincipal.from(user), "new-hash");
+
+        verify(userRepository).updatePassword("user", "new-hash");
+        assertEquals("new-hash", updated.getPassword());
+    }
+
+    @Test
+    @DisplayName("Should register with a single insert and add the username to the availability filter")
+    void registerInsertsOnce() {
+        when(passwordEncoder.encode("password")).thenReturn("hash");
+        when(userRepository.insertIfAbsent("user", "email@email.com", "hash", "ROLE_USER")).thenReturn(1);
+
+        User user = userService.register("user", "email@email.com", "password", "password", Role.ROLE_USER);
+
+        assertEquals("user", user.getUsername());
+        verify(usernameAvailabilityService).registered("user");
+        verify(userRepository, never()).findByUsername(anyString());
+        verify(userRepository, never()).save(any(User.class));
+    }
+
+    @Test
+    @DisplayName("Should throw UsernameAlreadyExistsException when the insert finds the username taken")
+    void registerWhenUsernameTakenThenThrowException() {
+        when(passwordEncoder.encode("password")).thenReturn("hash");
+        when(userRepository.insertIfAbsent("user", "email@email.com", "hash", "ROLE_USER")).thenReturn(0);
+
+        assertThrows(UsernameAlreadyExistsException.class,
+                () -> userService.register("user", "email@email.com", "password", "password", Role.ROLE_USER));
+        verify(usernameAvailabilityService, never()).registered(anyString());
+    }
+
+    @Test
+    @DisplayName("Repeat OAuth logins of a provisioned user should not touch the database")
+    void processOAuthPostLoginWhenKnownSkipsDatabase() {
+        when(userRepository.insertIfAbsent("Facebook User", "fb@email.com", null, "ROLE_USER")).thenReturn(0);
+
+        userService.processOAuthPostLogin("Facebook User", "fb@email.com");
+        userService.processOAuthPostLogin("Facebook User", "fb@email.com");
+        userService.processOAuthPostLogin("Facebook User", "fb@email.com");
+
+        verify(userRepository, times(1)).insertIfAbsent("Facebook User", "fb@email.com", null, "ROLE_USER");
+        verifyNoInteractions(usernameAvailabilityService);
+    }
+}
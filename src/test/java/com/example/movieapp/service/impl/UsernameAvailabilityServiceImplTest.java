@@ -0,0 +1,94 @@
+package com.example.movieapp.service.impl;
+
+import com.example.movieapp.repository.UserRepository;
+import com.example.movieapp.service.CacheInvalidationService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UsernameAvailabilityServiceImplTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private CacheInvalidationService cacheInvalidationService;
+
+    @InjectMocks
+    private UsernameAvailabilityServiceImpl usernameAvailabilityService;
+
+    @BeforeEach
+    void setUp() {
+        when(userRepository.count()).thenReturn(2L);
+        when(userRepository.findUsernamesAfter(eq(""), any(Pageable.class))).thenReturn(List.of("alice", "bob"));
+        usernameAvailabilityService.reload();
+    }
+
+    @Test
+    @DisplayName("Should answer a definite miss from the filter without querying the database")
+    void isAvailableWhenFilterMissesSkipsDatabase() {
+        assertTrue(usernameAvailabilityService.isAvailable("carol"));
+
+        verify(userRepository, never()).existsById(anyString());
+    }
+
+    @Test
+    @DisplayName("Should confirm a possible hit with the database")
+    void isAvailableWhenFilterHitsChecksDatabase() {
+        when(userRepository.existsById("alice")).thenReturn(true);
+
+        assertFalse(usernameAvailabilityService.isAvailable("alice"));
+    }
+
+    @Test
+    @DisplayName("Should treat newly registered usernames as taken")
+    void registeredUsernameIsNoLongerAvailable() {
+        usernameAvailabilityService.registered("carol");
+        when(userRepository.existsById("carol")).thenReturn(true);
+
+        assertFalse(usernameAvailabilityService.isAvailable("carol"));
+        verify(cacheInvalidationService).publishName(UsernameAvailabilityServiceImpl.REGION, "carol");
+    }
+
+    @Test
+    @DisplayName("Should treat usernames registered on another node as taken")
+    void usernameRegisteredElsewhereIsNoLongerAvailable() {
+        ArgumentCaptor<Consumer<String>> handler = ArgumentCaptor.forClass(Consumer.class);
+        verify(cacheInvalidationService).onNameInvalidation(eq(UsernameAvailabilityServiceImpl.REGION), handler.capture());
+
+        handler.getValue().accept("carol");
+        when(userRepository.existsById("carol")).thenReturn(true);
+
+        assertFalse(usernameAvailabilityService.isAvailable("carol"));
+    }
+
+    @Test
+    @DisplayName("Should keep usernames registered while the filter is being reloaded")
+    void usernameRegisteredDuringReloadIsKept() {
+        when(userRepository.findUsernamesAfter(eq(""), any(Pageable.class))).thenAnswer(invocation -> {
+            // registered after the scan read past it
+            usernameAvailabilityService.registered("carol");
+            return List.of("alice", "bob");
+        });
+        usernameAvailabilityService.reload();
+        when(userRepository.existsById("carol")).thenReturn(true);
+
+        assertFalse(usernameAvailabilityService.isAvailable("carol"));
+    }
+}